@@ -0,0 +1,61 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import com.uttkarsh.blogpost.service.ImageDerivativeService;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+final class BenchmarkFixtures {
+
+    static final String SECRET = "2UIw4WpK6VzI/x1r+ImJVjK9KfEwPzK+yBKfugLHeHs=";
+    static final long EXPIRATION_MS = 86_400_000L;
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtTokenProvider tokenProvider() {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", EXPIRATION_MS);
+        return tokenProvider;
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("{noop}benchmark");
+        user.setRoles(Set.of(Role.ROLE_USER));
+        return user;
+    }
+
+    static BlogPost blogPost(long id, int contentSize, User author) {
+        BlogPost blogPost = new BlogPost();
+        blogPost.setId(id);
+        blogPost.setTitle("Benchmark post " + id);
+        blogPost.setContent(LOREM.repeat(contentSize / LOREM.length() + 1).substring(0, contentSize));
+        blogPost.setImages(List.of("/images/" + "a".repeat(64) + ".jpg", "/images/" + "b".repeat(64) + ".png"));
+        blogPost.setAuthor(author);
+        blogPost.setCreatedAt(Instant.now());
+        blogPost.setUpdatedAt(Instant.now());
+        return blogPost;
+    }
+
+    // Variant lookup only touches the upload directory, so the real service runs without repositories
+    static BlogPostMapperImpl mapper(String uploadDir) {
+        ImageDerivativeService imageDerivativeService = new ImageDerivativeService(null, null, null, null, null);
+        ReflectionTestUtils.setField(imageDerivativeService, "uploadDir", uploadDir);
+        ReflectionTestUtils.setField(imageDerivativeService, "thumbnailWidth", 200);
+        ReflectionTestUtils.setField(imageDerivativeService, "mediumWidth", 800);
+        return new BlogPostMapperImpl(imageDerivativeService);
+    }
+}
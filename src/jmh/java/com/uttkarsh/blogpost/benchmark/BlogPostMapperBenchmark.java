@@ -0,0 +1,49 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlogPostMapperBenchmark {
+
+    private BlogPostMapperImpl mapper;
+    private BlogPost blogPost;
+    private BlogPostDto blogPostDto;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = BenchmarkFixtures.mapper(Files.createTempDirectory("mapper-benchmark").toString());
+        blogPost = BenchmarkFixtures.blogPost(1L, 4096, BenchmarkFixtures.user());
+        blogPostDto = mapper.toDto(blogPost);
+    }
+
+    @Benchmark
+    public BlogPostDto toDto() {
+        return mapper.toDto(blogPost);
+    }
+
+    @Benchmark
+    public BlogPost toEntity() {
+        return mapper.toEntity(blogPostDto);
+    }
+}
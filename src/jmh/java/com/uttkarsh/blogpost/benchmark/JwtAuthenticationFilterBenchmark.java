@@ -0,0 +1,74 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.security.JwtAuthenticationFilter;
+import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import com.uttkarsh.blogpost.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the whole filter against a mock request. With statelessPrincipal the token is served from the verified
+ * token cache; without it every request parses the token and goes through an in-memory user lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"true", "false"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = BenchmarkFixtures.tokenProvider();
+        User user = BenchmarkFixtures.user();
+        UserDetailsService userDetailsService = username -> user;
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, new VerifiedTokenCache(10_000),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", statelessPrincipal);
+        authorization = "Bearer " + tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts/1");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
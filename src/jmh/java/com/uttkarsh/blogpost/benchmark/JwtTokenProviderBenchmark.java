@@ -0,0 +1,56 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.tokenProvider();
+        user = BenchmarkFixtures.user();
+        token = tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return tokenProvider.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token, user);
+    }
+
+    @Benchmark
+    public User parseClaimsAndExtractUser() {
+        return tokenProvider.extractUser(tokenProvider.parseClaims(token));
+    }
+}
@@ -0,0 +1,63 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"1024", "16384", "131072"})
+    public int contentSize;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BlogPostDto> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        BlogPostMapperImpl mapper = BenchmarkFixtures.mapper(Files.createTempDirectory("page-benchmark").toString());
+        User author = BenchmarkFixtures.user();
+        List<BlogPostDto> content = new ArrayList<>();
+        for (long id = 1; id <= pageSize; id++) {
+            content.add(mapper.toDto(BenchmarkFixtures.blogPost(id, contentSize, author)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
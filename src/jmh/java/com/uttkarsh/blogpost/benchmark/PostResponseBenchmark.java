@@ -0,0 +1,71 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body production for GET /api/posts/{id}: mapping and serializing on every request, as before the response
+ * cache, against copying out the cached bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostResponseBenchmark {
+
+    @Param({"1024", "16384", "131072"})
+    public int contentSize;
+
+    private ObjectMapper objectMapper;
+    private BlogPostMapperImpl mapper;
+    private BlogPost blogPost;
+    private PostResponseCache postResponseCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        mapper = BenchmarkFixtures.mapper(Files.createTempDirectory("response-benchmark").toString());
+        blogPost = BenchmarkFixtures.blogPost(1L, contentSize, BenchmarkFixtures.user());
+        postResponseCache = new PostResponseCache(64L * 1024 * 1024, objectMapper, new SimpleMeterRegistry());
+        postResponseCache.get(blogPost.getId(), null, id -> mapper.toDto(blogPost));
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        BlogPostDto blogPostDto = mapper.toDto(blogPost);
+        return objectMapper.writeValueAsBytes(blogPostDto);
+    }
+
+    @Benchmark
+    public byte[] cachedJson() {
+        return postResponseCache.get(blogPost.getId(), blogPost.getUpdatedAt(), id -> mapper.toDto(blogPost)).json();
+    }
+
+    @Benchmark
+    public byte[] cachedGzip() {
+        return postResponseCache.get(blogPost.getId(), blogPost.getUpdatedAt(), id -> mapper.toDto(blogPost)).gzip();
+    }
+}
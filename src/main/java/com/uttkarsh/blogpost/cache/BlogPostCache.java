@@ -0,0 +1,107 @@
+package com.uttkarsh.blogpost.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.ImageVariants;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of single posts. Caffeine's W-TinyLFU keeps the frequently read posts, the budget is
+ * an estimate of retained bytes, and concurrent misses on the same id share one load.
+ */
+@Component
+public class BlogPostCache {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int STRING_OVERHEAD = 40;
+
+    private final Cache<Long, BlogPostDto> cache;
+
+    public BlogPostCache(@Value("${cache.posts.max-bytes}") long maxBytes, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, BlogPostDto blogPostDto) -> weigh(blogPostDto))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "blogPosts");
+    }
+
+    // Every caller gets its own copy; the cached one is shared by all readers and must never change
+    public BlogPostDto get(Long id, Function<Long, BlogPostDto> loader) {
+        return copyOf(cache.get(id, loader));
+    }
+
+    // updatedAt of the cached copy, or null when the post isn't cached
+    public Instant cachedVersion(Long id) {
+        BlogPostDto blogPostDto = cache.getIfPresent(id);
+        return blogPostDto != null ? blogPostDto.getUpdatedAt() : null;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    // Runs after commit so a rolled back update never evicts, and a reader can't re-cache the old row mid-transaction.
+    // Ordered before PostResponseCache so a response re-encoded after its eviction can't pick up the old post here
+    @Order(ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostEvent(BlogPostEvent event) {
+        if (event.type() != BlogPostEvent.Type.CREATED) {
+            cache.invalidate(event.postId());
+        }
+    }
+
+    // Estimated bytes held, after pending evictions have run
+    long weightedSize() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+    }
+
+    private static BlogPostDto copyOf(BlogPostDto cached) {
+        if (cached == null) {
+            return null;
+        }
+        BlogPostDto blogPostDto = new BlogPostDto();
+        blogPostDto.setId(cached.getId());
+        blogPostDto.setTitle(cached.getTitle());
+        blogPostDto.setContent(cached.getContent());
+        blogPostDto.setExistingImages(cached.getExistingImages() != null ? new ArrayList<>(cached.getExistingImages()) : null);
+        blogPostDto.setImageVariants(cached.getImageVariants() != null
+                ? cached.getImageVariants().stream()
+                        .map(variants -> new ImageVariants(variants.getOriginal(), variants.getThumbnail(), variants.getMedium()))
+                        .collect(Collectors.toCollection(ArrayList::new))
+                : null);
+        blogPostDto.setAuthorId(cached.getAuthorId());
+        blogPostDto.setUpdatedAt(cached.getUpdatedAt());
+        return blogPostDto;
+    }
+
+    private static int weigh(BlogPostDto blogPostDto) {
+        long bytes = OBJECT_OVERHEAD + sizeOf(blogPostDto.getTitle()) + sizeOf(blogPostDto.getContent());
+        if (blogPostDto.getExistingImages() != null) {
+            for (String image : blogPostDto.getExistingImages()) {
+                bytes += sizeOf(image);
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+}
@@ -0,0 +1,101 @@
+package com.uttkarsh.blogpost.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.util.PostETags;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Single-post response bodies, already encoded as UTF-8 JSON and, when worth it, gzip. Hot posts are
+ * written from these bytes without mapping or serializing. Each entry remembers the updatedAt it was
+ * encoded from, so a caller that knows a newer version gets it re-encoded.
+ */
+@Component
+public class PostResponseCache {
+
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    public record EncodedPost(Instant updatedAt, String etag, byte[] json, byte[] gzip) {
+    }
+
+    private final Cache<Long, EncodedPost> cache;
+    private final ObjectWriter writer;
+
+    public PostResponseCache(@Value("${cache.post-responses.max-bytes}") long maxBytes, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, EncodedPost post) -> weigh(post))
+                .recordStats()
+                .build();
+        this.writer = objectMapper.writerFor(BlogPostDto.class);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "postResponses");
+    }
+
+    // minVersion is the newest updatedAt the caller knows of, otherwise null
+    public EncodedPost get(Long id, Instant minVersion, Function<Long, BlogPostDto> loader) {
+        EncodedPost post = cache.get(id, key -> encode(loader.apply(key)));
+        if (minVersion != null && post.updatedAt().isBefore(minVersion)) {
+            post = encode(loader.apply(id));
+            cache.put(id, post);
+        }
+        return post;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    // Evicts after BlogPostCache, whose copy a re-encode would otherwise read
+    @Order(BlogPostCache.ORDER + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostEvent(BlogPostEvent event) {
+        if (event.type() != BlogPostEvent.Type.CREATED) {
+            cache.invalidate(event.postId());
+        }
+    }
+
+    private EncodedPost encode(BlogPostDto blogPostDto) {
+        try {
+            byte[] json = writer.writeValueAsBytes(blogPostDto);
+            byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+            return new EncodedPost(blogPostDto.getUpdatedAt(), PostETags.of(blogPostDto.getId(), blogPostDto.getUpdatedAt()),
+                    json, gzip != null && gzip.length < json.length ? gzip : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode blog post " + blogPostDto.getId(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int weigh(EncodedPost post) {
+        long bytes = ENTRY_OVERHEAD + post.json().length + (post.gzip() != null ? post.gzip().length : 0);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
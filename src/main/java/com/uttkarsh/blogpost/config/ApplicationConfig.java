@@ -1,6 +1,9 @@
 package com.uttkarsh.blogpost.config;
 
 import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.security.BoundedPasswordEncoder;
+import com.uttkarsh.blogpost.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +17,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
@@ -28,10 +33,10 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -41,7 +46,8 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry, ExecutorService passwordHashingExecutor) {
+        return new BoundedPasswordEncoder(new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry),
+                passwordHashingExecutor, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.uttkarsh.blogpost.config;
+
+import com.uttkarsh.blogpost.datasource.ConcurrencyLimitedDataSource;
+import com.uttkarsh.blogpost.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "datasource.concurrency-limit.enabled", havingValue = "true")
+public class DataSourceConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        int permits = environment.getRequiredProperty("datasource.concurrency-limit.permits", Integer.class);
+        long acquireTimeoutMs = environment.getRequiredProperty("datasource.concurrency-limit.acquire-timeout-ms", Long.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The routing data source limits each of its pools itself, see ReadReplicaConfig
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)
+                        && !(bean instanceof ReadWriteRoutingDataSource)) {
+                    return new ConcurrencyLimitedDataSource(dataSource, permits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.uttkarsh.blogpost.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    // The pools below are Executors, which turns off Boot's own applicationTaskExecutor, so it is declared here the
+    // way Boot would: unbounded virtual threads in virtual-thread mode, otherwise the spring.task.execution pool
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(@Value("${spring.threads.virtual.enabled}") boolean virtualThreads,
+                                                     ObjectProvider<SimpleAsyncTaskExecutorBuilder> simpleBuilder,
+                                                     ObjectProvider<ThreadPoolTaskExecutorBuilder> poolBuilder) {
+        if (virtualThreads) {
+            return simpleBuilder.getIfAvailable(SimpleAsyncTaskExecutorBuilder::new)
+                    .virtualThreads(true)
+                    .build();
+        }
+        return poolBuilder.getIfAvailable(ThreadPoolTaskExecutorBuilder::new).build();
+    }
+
+    // Runs StreamingResponseBody exports and other async MVC work
+    @Bean
+    public WebMvcConfigurer asyncSupportConfigurer(
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor applicationTaskExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(applicationTaskExecutor);
+            }
+        };
+    }
+
+    // Uploads are bounded by the request's own image count, so in virtual-thread mode each one gets its own thread
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imageIoExecutor(@Value("${file.upload-threads}") int uploadThreads,
+                                           @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("image-io-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(uploadThreads, Thread.ofPlatform().name("image-io-", 0).daemon(true).factory());
+    }
+
+    // Bounded queue that rejects when full; rejected jobs stay pending in the database and are polled later
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imageDerivativeExecutor(@Value("${file.derivatives.threads}") int threads,
+                                                   @Value("${file.derivatives.queue-capacity}") int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-derivative-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // One drain at a time with at most one queued behind it; wake-ups beyond that are redundant
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imageDeletionExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                Thread.ofPlatform().name("image-deletion-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Caps the cores BCrypt can take during a login storm; past the queue, logins are refused with 503 at once
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(@Value("${auth.password-hashing.threads}") int threads,
+                                                   @Value("${auth.password-hashing.queue-capacity}") int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Writes to live feed subscribers. emitter.send blocks while a client's socket is full, so each drain gets its
+    // own virtual thread and a stalled client holds only that; at most one drain per subscriber plus the dispatcher
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService liveFeedExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("live-feed-", 0).factory());
+    }
+}
@@ -0,0 +1,83 @@
+package com.uttkarsh.blogpost.config;
+
+import com.uttkarsh.blogpost.datasource.ConcurrencyLimitedDataSource;
+import com.uttkarsh.blogpost.datasource.ReadWriteRoutingDataSource;
+import com.uttkarsh.blogpost.datasource.ReadYourWritesInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Replaces Boot's single pool with a primary and one pool per replica, all configured from spring.datasource.*
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    @Value("${datasource.replicas.read-your-writes-ms}")
+    private long readYourWritesMs;
+
+    @Value("${datasource.concurrency-limit.enabled}")
+    private boolean limitConcurrency;
+
+    @Value("${datasource.concurrency-limit.acquire-timeout-ms}")
+    private long acquireTimeoutMs;
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                                 @Value("${datasource.replicas.urls}") List<String> replicaUrls,
+                                                 @Value("${datasource.replicas.selection}") ReadWriteRoutingDataSource.Selection selection,
+                                                 @Value("${datasource.replicas.max-lag-ms}") long maxLagMs,
+                                                 @Value("${datasource.replicas.lag-check-interval-ms}") long lagCheckIntervalMs) {
+        HikariDataSource primary = pool(properties, properties.determineUrl(), "primary", environment, meterRegistry);
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = pool(properties, replicaUrls.get(i), name, environment, meterRegistry);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        // Each pool gets its own permits, sized to the pool, rather than one limit shared by primary and replicas
+        Function<HikariDataSource, DataSource> connectionSource = limitConcurrency
+                ? pool -> new ConcurrencyLimitedDataSource(pool, pool.getMaximumPoolSize(), acquireTimeoutMs)
+                : pool -> pool;
+        return new ReadWriteRoutingDataSource(primary, replicas, selection, maxLagMs, lagCheckIntervalMs, connectionSource);
+    }
+
+    @Bean
+    public ReadYourWritesInterceptor readYourWritesInterceptor() {
+        return new ReadYourWritesInterceptor(Duration.ofMillis(readYourWritesMs), 100_000);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWritesInterceptor());
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String url, String name, Environment environment,
+                                         MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
@@ -1,20 +1,28 @@
 package com.uttkarsh.blogpost.controller;
 
 import com.uttkarsh.blogpost.dto.AuthenticationResponse;
+import com.uttkarsh.blogpost.dto.RefreshTokenRequest;
 import com.uttkarsh.blogpost.dto.UserDto;
 import com.uttkarsh.blogpost.service.AuthService;
+import com.uttkarsh.blogpost.service.UserAvailabilityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -22,16 +30,40 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final AuthService authService;
+    private final UserAvailabilityService userAvailabilityService;
 
     @Operation(summary = "Register a new user", description = "Create a new user account")
     @ApiResponse(responseCode = "200", description = "User registered successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input")
+    @ApiResponse(responseCode = "409", description = "Username or email already taken")
     @PostMapping("/register")
     public ResponseEntity<AuthenticationResponse> register(
             @Parameter(description = "User registration details") @Valid @RequestBody UserDto userDto) {
         return ResponseEntity.ok(authService.register(userDto));
     }
 
+    @Operation(summary = "Check availability", description = "Whether a username and/or email is still free; answers from an in-memory filter where possible. Advisory only, registration can still return 409")
+    @ApiResponse(responseCode = "200", description = "Availability of each supplied value")
+    @ApiResponse(responseCode = "400", description = "Neither username nor email supplied")
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Boolean>> availability(
+            @Parameter(description = "Username to check") @RequestParam(required = false) String username,
+            @Parameter(description = "Email to check") @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", userAvailabilityService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", userAvailabilityService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(availability);
+    }
+
     @Operation(summary = "Authenticate user", description = "Login with username and password")
     @ApiResponse(responseCode = "200", description = "Authentication successful")
     @ApiResponse(responseCode = "401", description = "Authentication failed")
@@ -40,4 +72,22 @@ public class AuthController {
             @Parameter(description = "User login credentials") @Valid @RequestBody UserDto userDto) {
         return ResponseEntity.ok(authService.authenticate(userDto));
     }
+
+    @Operation(summary = "Refresh access token", description = "Exchange a refresh token for a new access token and a new refresh token; each refresh token works once")
+    @ApiResponse(responseCode = "200", description = "Tokens refreshed")
+    @ApiResponse(responseCode = "401", description = "Refresh token invalid, expired or already used")
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(
+            @Parameter(description = "Refresh token from login or the previous refresh") @Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @Operation(summary = "Log out", description = "Revoke a refresh token along with every token rotated from the same login")
+    @ApiResponse(responseCode = "204", description = "Refresh token revoked")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @Parameter(description = "Refresh token to revoke") @Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
 }
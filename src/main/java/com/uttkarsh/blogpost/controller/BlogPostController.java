@@ -1,25 +1,49 @@
 package com.uttkarsh.blogpost.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.cache.PostResponseCache.EncodedPost;
 import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.CursorPage;
+import com.uttkarsh.blogpost.dto.ImportReport;
+import com.uttkarsh.blogpost.dto.PostVersion;
+import com.uttkarsh.blogpost.live.LiveFeedBroadcaster;
 import com.uttkarsh.blogpost.model.User;
 import com.uttkarsh.blogpost.service.BlogPostService;
+import com.uttkarsh.blogpost.service.PostExportService;
+import com.uttkarsh.blogpost.service.PostImportService;
+import com.uttkarsh.blogpost.util.PostETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -28,35 +52,110 @@ import java.util.List;
 public class BlogPostController {
 
     private final BlogPostService blogPostService;
+    private final PostImportService postImportService;
+    private final PostExportService postExportService;
+    private final PostResponseCache postResponseCache;
     private final ObjectMapper objectMapper;
+    private final LiveFeedBroadcaster liveFeedBroadcaster;
 
     @Operation(summary = "Get all blog posts", description = "Retrieve a paginated list of all blog posts")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
     @GetMapping
-    public ResponseEntity<Page<BlogPostDto>> getAllBlogPosts(
-            @Parameter(description = "Pagination information") Pageable pageable) {
-        return ResponseEntity.ok(blogPostService.getAllBlogPosts(pageable));
+    public ResponseEntity<Slice<BlogPostDto>> getAllBlogPosts(
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalPage(webRequest,
+                () -> blogPostService.getAllBlogPostVersions(pageable, withTotal),
+                () -> blogPostService.getAllBlogPosts(pageable, withTotal));
+    }
+
+    @Operation(summary = "Get all blog post summaries", description = "Retrieve a paginated list of post summaries with a short excerpt instead of the full content")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @GetMapping(params = {"view=summary", "!cursor"})
+    public ResponseEntity<Slice<BlogPostSummary>> getAllBlogPostSummaries(
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryPage(webRequest,
+                () -> blogPostService.getAllBlogPostVersions(pageable, withTotal),
+                () -> blogPostService.getAllBlogPostSummaries(pageable, withTotal));
+    }
+
+    @Operation(summary = "Get all blog posts by cursor", description = "Retrieve blog posts newest first using keyset pagination. Pass an empty cursor to start from the newest post")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<BlogPostDto>> getAllBlogPostsByCursor(
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalCursorPage(webRequest,
+                () -> blogPostService.getAllBlogPostVersions(cursor, size),
+                () -> blogPostService.getAllBlogPosts(cursor, size));
+    }
+
+    @Operation(summary = "Get all blog post summaries by cursor", description = "Retrieve post summaries newest first using keyset pagination. Pass an empty cursor to start from the newest post")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(params = {"view=summary", "cursor"})
+    public ResponseEntity<CursorPage<BlogPostSummary>> getAllBlogPostSummariesByCursor(
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryCursorPage(webRequest,
+                () -> blogPostService.getAllBlogPostVersions(cursor, size),
+                () -> blogPostService.getAllBlogPostSummaries(cursor, size));
     }
 
     @Operation(summary = "Get a blog post by ID", description = "Retrieve a specific blog post by its ID")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved the blog post")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the blog post",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BlogPostDto.class)))
+    @ApiResponse(responseCode = "304", description = "Blog post unchanged since the given ETag or date")
     @ApiResponse(responseCode = "404", description = "Blog post not found")
     @GetMapping("/{id}")
-    public ResponseEntity<BlogPostDto> getBlogPostById(
-            @Parameter(description = "ID of the blog post to retrieve") @PathVariable Long id) {
-        return ResponseEntity.ok(blogPostService.getBlogPostById(id));
+    public ResponseEntity<byte[]> getBlogPostById(
+            @Parameter(description = "ID of the blog post to retrieve") @PathVariable Long id,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        Instant version = null;
+        if (isConditional(webRequest)) {
+            version = blogPostService.getBlogPostVersion(id);
+            if (notModified(webRequest, PostETags.of(id, version), version.toEpochMilli())) {
+                return null;
+            }
+        }
+
+        // The body is written from pre-encoded bytes; see PostResponseCache. Without a conditional lookup the post
+        // cache still knows of updates an encoded copy may predate
+        Instant minVersion = version != null ? version : blogPostService.getCachedBlogPostVersion(id);
+        EncodedPost post = postResponseCache.get(id, minVersion, key -> blogPostService.getBlogPostById(key, minVersion));
+        boolean gzip = post.gzip() != null && acceptsGzip(webRequest);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(post.etag())
+                .lastModified(post.updatedAt())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? post.gzip() : post.json());
     }
 
 
     @Operation(summary = "Create a new blog post", description = "Create a new blog post with optional images")
     @ApiResponse(responseCode = "201", description = "Blog post created successfully")
+    @ApiResponse(responseCode = "400", description = "existingImages given; a new post can only carry images uploaded with it")
     @PostMapping(consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<BlogPostDto> createBlogPost(
             @Parameter(description = "Blog post data in JSON format") @RequestPart(value = "blogPost", required = false) String blogPostJson,
             @Parameter(description = "Images to upload") @RequestPart(value = "images", required = false) List<MultipartFile> images,
             @Parameter(hidden = true) @AuthenticationPrincipal User currentUser) throws IOException {
 
-        ObjectMapper objectMapper = new ObjectMapper();
         BlogPostDto blogPostDto;
 
         if (blogPostJson != null) {
@@ -96,37 +195,291 @@ public class BlogPostController {
     @ApiResponse(responseCode = "404", description = "Blog post not found")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBlogPost(
-            @Parameter(description = "ID of the blog post to delete") @PathVariable Long id) throws IOException {
+            @Parameter(description = "ID of the blog post to delete") @PathVariable Long id) {
         blogPostService.deleteBlogPost(id);
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Search blog posts", description = "Search blog posts by title and/or author")
+    @Operation(summary = "Import blog posts", description = "Bulk import posts from NDJSON, one JSON object per line with title, content, optional images already in the image store and optional authorId. Admin only")
+    @ApiResponse(responseCode = "200", description = "Import finished; the report lists records that failed")
+    @ApiResponse(responseCode = "403", description = "Not an admin")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importBlogPosts(
+            @Parameter(hidden = true) HttpServletRequest request,
+            @Parameter(hidden = true) @AuthenticationPrincipal User currentUser) throws IOException {
+        return ResponseEntity.ok(postImportService.importPosts(request.getInputStream(), currentUser.getId()));
+    }
+
+    @Operation(summary = "Export blog posts", description = "Stream all posts oldest first as NDJSON, optionally filtered by author and last-update range. Admin only")
+    @ApiResponse(responseCode = "200", description = "Posts streamed")
+    @ApiResponse(responseCode = "403", description = "Not an admin")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBlogPosts(
+            @Parameter(description = "Author ID to filter by") @RequestParam(required = false) Long authorId,
+            @Parameter(description = "Only posts updated at or after this instant (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant updatedFrom,
+            @Parameter(description = "Only posts updated before this instant (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant updatedTo) {
+        StreamingResponseBody body = out -> postExportService.exportPosts(authorId, updatedFrom, updatedTo, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Live feed of post changes", description = "Server-Sent Events stream of created, updated and deleted posts as 'post' events. " +
+            "Reconnect with Last-Event-ID to receive what was missed; a 'reset' event means the gap is too old, or many posts changed at once " +
+            "(such as an import), and the listing should be reloaded. Browsers' EventSource can't send an Authorization header, so the " +
+            "access token may be passed as the access_token query parameter instead; it shows up in URLs, so keep access tokens short-lived")
+    @ApiResponse(responseCode = "200", description = "Stream opened")
+    @ApiResponse(responseCode = "503", description = "Subscriber limit reached")
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> liveFeed(
+            @Parameter(description = "Id of the last event received, sent automatically by EventSource on reconnect")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Keeps reverse proxies such as nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(liveFeedBroadcaster.subscribe(lastEventId));
+    }
+
+    @Operation(summary = "Search blog posts", description = "Full-text search over title and content ranked by relevance, optionally filtered by author")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
     @GetMapping("/search")
-    public ResponseEntity<Page<BlogPostDto>> searchBlogPosts(
+    public ResponseEntity<Slice<BlogPostDto>> searchBlogPosts(
+            @Parameter(description = "Words to search for in title and content") @RequestParam(required = false) String title,
+            @Parameter(description = "Author ID to filter by") @RequestParam(required = false) Long authorId,
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalPage(webRequest,
+                () -> blogPostService.searchBlogPostVersions(title, authorId, pageable, withTotal),
+                () -> blogPostService.searchBlogPosts(title, authorId, pageable, withTotal));
+    }
+
+    @Operation(summary = "Search blog post summaries", description = "Same search as /search, returning summaries with a short excerpt instead of the full content")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @GetMapping(value = "/search", params = {"view=summary", "!cursor"})
+    public ResponseEntity<Slice<BlogPostSummary>> searchBlogPostSummaries(
+            @Parameter(description = "Words to search for in title and content") @RequestParam(required = false) String title,
+            @Parameter(description = "Author ID to filter by") @RequestParam(required = false) Long authorId,
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryPage(webRequest,
+                () -> blogPostService.searchBlogPostVersions(title, authorId, pageable, withTotal),
+                () -> blogPostService.searchBlogPostSummaries(title, authorId, pageable, withTotal));
+    }
+
+    @Operation(summary = "Search blog posts by cursor", description = "Search blog posts by title and/or author using keyset pagination")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<CursorPage<BlogPostDto>> searchBlogPostsByCursor(
             @Parameter(description = "Title to search for") @RequestParam(required = false) String title,
             @Parameter(description = "Author ID to filter by") @RequestParam(required = false) Long authorId,
-            @Parameter(description = "Pagination information") Pageable pageable) {
-        return ResponseEntity.ok(blogPostService.searchBlogPosts(title, authorId, pageable));
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalCursorPage(webRequest,
+                () -> blogPostService.searchBlogPostVersions(title, authorId, cursor, size),
+                () -> blogPostService.searchBlogPosts(title, authorId, cursor, size));
+    }
+
+    @Operation(summary = "Search blog post summaries by cursor", description = "Same search as /search with a cursor, returning summaries with a short excerpt instead of the full content")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(value = "/search", params = {"view=summary", "cursor"})
+    public ResponseEntity<CursorPage<BlogPostSummary>> searchBlogPostSummariesByCursor(
+            @Parameter(description = "Title to search for") @RequestParam(required = false) String title,
+            @Parameter(description = "Author ID to filter by") @RequestParam(required = false) Long authorId,
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryCursorPage(webRequest,
+                () -> blogPostService.searchBlogPostVersions(title, authorId, cursor, size),
+                () -> blogPostService.searchBlogPostSummaries(title, authorId, cursor, size));
     }
 
     @Operation(summary = "Filter blog posts by title", description = "Get a list of blog posts filtered by title")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
     @GetMapping("/filter/title")
-    public ResponseEntity<Page<BlogPostDto>> filterByTitle(
+    public ResponseEntity<Slice<BlogPostDto>> filterByTitle(
+            @Parameter(description = "Title to filter by") @RequestParam String title,
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalPage(webRequest,
+                () -> blogPostService.filterVersionsByTitle(title, pageable, withTotal),
+                () -> blogPostService.filterByTitle(title, pageable, withTotal));
+    }
+
+    @Operation(summary = "Filter blog post summaries by title", description = "Get post summaries filtered by title")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @GetMapping(value = "/filter/title", params = "view=summary")
+    public ResponseEntity<Slice<BlogPostSummary>> filterSummariesByTitle(
             @Parameter(description = "Title to filter by") @RequestParam String title,
-            @Parameter(description = "Pagination information") Pageable pageable) {
-        return ResponseEntity.ok(blogPostService.filterByTitle(title, pageable));
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryPage(webRequest,
+                () -> blogPostService.filterVersionsByTitle(title, pageable, withTotal),
+                () -> blogPostService.filterSummariesByTitle(title, pageable, withTotal));
     }
 
     @Operation(summary = "Filter blog posts by author", description = "Get a list of blog posts filtered by author ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
     @GetMapping("/filter/author")
-    public ResponseEntity<Page<BlogPostDto>> filterByAuthor(
+    public ResponseEntity<Slice<BlogPostDto>> filterByAuthor(
             @Parameter(description = "Author ID to filter by") @RequestParam Long authorId,
-            @Parameter(description = "Pagination information") Pageable pageable) {
-        return ResponseEntity.ok(blogPostService.filterByAuthor(authorId, pageable));
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalPage(webRequest,
+                () -> blogPostService.filterVersionsByAuthor(authorId, pageable, withTotal),
+                () -> blogPostService.filterByAuthor(authorId, pageable, withTotal));
     }
-}
 
+    @Operation(summary = "Filter blog post summaries by author", description = "Get post summaries filtered by author ID")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @GetMapping(value = "/filter/author", params = {"view=summary", "!cursor"})
+    public ResponseEntity<Slice<BlogPostSummary>> filterSummariesByAuthor(
+            @Parameter(description = "Author ID to filter by") @RequestParam Long authorId,
+            @Parameter(description = "Pagination information") Pageable pageable,
+            @Parameter(description = "Set to false to skip the total and only report whether there is a next page") @RequestParam(defaultValue = "true") boolean withTotal,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryPage(webRequest,
+                () -> blogPostService.filterVersionsByAuthor(authorId, pageable, withTotal),
+                () -> blogPostService.filterSummariesByAuthor(authorId, pageable, withTotal));
+    }
+
+    @Operation(summary = "Filter blog posts by author by cursor", description = "Get blog posts of an author using keyset pagination")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog posts")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(value = "/filter/author", params = "cursor")
+    public ResponseEntity<CursorPage<BlogPostDto>> filterByAuthorByCursor(
+            @Parameter(description = "Author ID to filter by") @RequestParam Long authorId,
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalCursorPage(webRequest,
+                () -> blogPostService.filterVersionsByAuthor(authorId, cursor, size),
+                () -> blogPostService.filterByAuthor(authorId, cursor, size));
+    }
+
+    @Operation(summary = "Filter blog post summaries by author by cursor", description = "Get post summaries of an author using keyset pagination")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered list of blog post summaries")
+    @ApiResponse(responseCode = "304", description = "Listing unchanged since the given ETag")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @GetMapping(value = "/filter/author", params = {"view=summary", "cursor"})
+    public ResponseEntity<CursorPage<BlogPostSummary>> filterSummariesByAuthorByCursor(
+            @Parameter(description = "Author ID to filter by") @RequestParam Long authorId,
+            @Parameter(description = "Opaque cursor from a previous response") @RequestParam String cursor,
+            @Parameter(description = "Number of posts per page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) ServletWebRequest webRequest) {
+        return conditionalSummaryCursorPage(webRequest,
+                () -> blogPostService.filterVersionsByAuthor(authorId, cursor, size),
+                () -> blogPostService.filterSummariesByAuthor(authorId, cursor, size));
+    }
+
+    // Listings carry an ETag only: rows dropping out of a page don't move any updatedAt, so Last-Modified can't see them.
+    // Without If-None-Match there is nothing a version lookup could match, so it is skipped
+    private static ResponseEntity<Slice<BlogPostDto>> conditionalPage(
+            ServletWebRequest webRequest, Supplier<Slice<PostVersion>> versions, Supplier<Slice<BlogPostDto>> posts) {
+        return conditionalPage(webRequest, versions, posts, BlogPostDto::getId, BlogPostDto::getUpdatedAt, "full");
+    }
+
+    private static ResponseEntity<Slice<BlogPostSummary>> conditionalSummaryPage(
+            ServletWebRequest webRequest, Supplier<Slice<PostVersion>> versions, Supplier<Slice<BlogPostSummary>> summaries) {
+        return conditionalPage(webRequest, versions, summaries, BlogPostSummary::getId, BlogPostSummary::getUpdatedAt, "summary");
+    }
+
+    private static <T> ResponseEntity<Slice<T>> conditionalPage(
+            ServletWebRequest webRequest, Supplier<Slice<PostVersion>> versions, Supplier<Slice<T>> posts,
+            Function<T, Long> idFn, Function<T, Instant> updatedAtFn, String view) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Slice<PostVersion> page = versions.get();
+            if (notModified(webRequest, PostETags.ofListing(page.getContent(), PostVersion::id, PostVersion::updatedAt, extent(page), view), -1)) {
+                return null;
+            }
+        }
+        Slice<T> page = posts.get();
+        return ResponseEntity.ok()
+                .eTag(PostETags.ofListing(page.getContent(), idFn, updatedAtFn, extent(page), view))
+                .cacheControl(CacheControl.noCache())
+                .body(page);
+    }
+
+    // For a slice, whether more follows. A page's total (and so its hasNext) may be an estimate that drifts
+    // without any row changing, so a page is tagged by its rows alone
+    private static Object extent(Slice<?> slice) {
+        return slice instanceof Page<?> ? "page" : slice.hasNext();
+    }
+
+    private static ResponseEntity<CursorPage<BlogPostDto>> conditionalCursorPage(
+            ServletWebRequest webRequest, Supplier<CursorPage<PostVersion>> versions, Supplier<CursorPage<BlogPostDto>> posts) {
+        return conditionalCursorPage(webRequest, versions, posts, BlogPostDto::getId, BlogPostDto::getUpdatedAt, "full");
+    }
+
+    private static ResponseEntity<CursorPage<BlogPostSummary>> conditionalSummaryCursorPage(
+            ServletWebRequest webRequest, Supplier<CursorPage<PostVersion>> versions, Supplier<CursorPage<BlogPostSummary>> summaries) {
+        return conditionalCursorPage(webRequest, versions, summaries, BlogPostSummary::getId, BlogPostSummary::getUpdatedAt, "summary");
+    }
+
+    private static <T> ResponseEntity<CursorPage<T>> conditionalCursorPage(
+            ServletWebRequest webRequest, Supplier<CursorPage<PostVersion>> versions, Supplier<CursorPage<T>> posts,
+            Function<T, Long> idFn, Function<T, Instant> updatedAtFn, String view) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            CursorPage<PostVersion> page = versions.get();
+            if (notModified(webRequest, PostETags.ofListing(page.getContent(), PostVersion::id, PostVersion::updatedAt,
+                    page.getNextCursor(), page.getPrevCursor(), view), -1)) {
+                return null;
+            }
+        }
+        CursorPage<T> page = posts.get();
+        return ResponseEntity.ok()
+                .eTag(PostETags.ofListing(page.getContent(), idFn, updatedAtFn, page.getNextCursor(), page.getPrevCursor(), view))
+                .cacheControl(CacheControl.noCache())
+                .body(page);
+    }
+
+    private static boolean acceptsGzip(ServletWebRequest webRequest) {
+        String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Only requests that can be answered with 304 pay for the version lookup
+    private static boolean isConditional(ServletWebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    // no-cache lets clients and CDNs store the response as long as they revalidate it
+    private static boolean notModified(ServletWebRequest webRequest, String etag, long lastModified) {
+        if (!webRequest.checkNotModified(etag, lastModified)) {
+            return false;
+        }
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package com.uttkarsh.blogpost.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/images")
+@Tag(name = "Images", description = "Public image delivery")
+public class ImageController {
+
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat's NIO connector sends the file with sendfile when these request attributes are set
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Operation(summary = "Get an image", description = "Serve a stored image with ETag, Last-Modified and byte range support")
+    @ApiResponse(responseCode = "200", description = "Image content")
+    @ApiResponse(responseCode = "206", description = "Requested byte range of the image")
+    @ApiResponse(responseCode = "304", description = "Image not modified")
+    @ApiResponse(responseCode = "404", description = "Image not found")
+    @RequestMapping(value = "/{fileName:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getImage(
+            @Parameter(description = "File name of the image") @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!FILE_NAME.matcher(fileName).matches() || fileName.endsWith(".part")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path path = Paths.get(uploadDir, fileName).toAbsolutePath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // Size and mtime identify the file; stored images are never rewritten in place
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+            // Multi-range requests are answered with the whole file, which RFC 9110 allows
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, length - offset(matcher.group(2)));
+                } else {
+                    start = offset(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, offset(matcher.group(2)));
+                    }
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(count);
+
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Too many digits for a long can only point past the end of the file
+    private static long offset(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (ifNoneMatch.trim().equals("*")) {
+                return true;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            // HTTP dates have second precision
+            return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
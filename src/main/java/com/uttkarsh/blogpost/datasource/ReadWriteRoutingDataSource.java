@@ -0,0 +1,176 @@
+package com.uttkarsh.blogpost.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends read-only transactions to replicas and everything else to the primary. Connections are fetched lazily,
+ * on the first statement, by which point the transaction has marked them read-only. Replicas lagging more than
+ * maxLagMs, or failing their last check, are skipped; with none left, and for requests that need their own
+ * writes back (see {@link ReadYourWritesInterceptor}), reads go to the primary. Connections can be taken through
+ * a wrapper per pool, such as a {@link ConcurrencyLimitedDataSource} sized to that pool.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    // Zero when the replica has replayed everything it received, so an idle primary doesn't read as lag
+    private static final String LAG_SQL = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private final DataSource connections;
+        private volatile long lagMs;
+        private volatile boolean reachable = true;
+
+        private Replica(String name, HikariDataSource pool, DataSource connections) {
+            this.name = name;
+            this.pool = pool;
+            this.connections = connections;
+        }
+
+        private boolean isUsable(long maxLagMs) {
+            return reachable && lagMs <= maxLagMs;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = this.pool.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+    }
+
+    private final HikariDataSource primary;
+    private final DataSource primaryConnections;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas,
+                                      Selection selection, long maxLagMs, long lagCheckIntervalMs) {
+        this(primary, replicas, selection, maxLagMs, lagCheckIntervalMs, pool -> pool);
+    }
+
+    // Pools stay Hikari for metrics and close(); connections are taken through connectionSource's wrapper of each
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas,
+                                      Selection selection, long maxLagMs, long lagCheckIntervalMs,
+                                      Function<HikariDataSource, DataSource> connectionSource) {
+        super(connectionSource.apply(primary));
+        this.primary = primary;
+        this.primaryConnections = getTargetDataSource();
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue(), connectionSource.apply(entry.getValue())))
+                .toList();
+        this.selection = selection;
+        this.maxLagMs = maxLagMs;
+        setReadOnlyDataSource(new ReplicaDataSource());
+
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-lag").daemon(true).factory());
+        this.lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, lagCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                replica.lagMs = resultSet.getLong(1);
+                if (!replica.reachable) {
+                    log.info("Replica {} is reachable again", replica.name);
+                }
+                replica.reachable = true;
+            } catch (SQLException | RuntimeException e) {
+                if (replica.reachable) {
+                    log.warn("Replica {} failed its lag check, reading from the primary instead", replica.name, e);
+                }
+                replica.reachable = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private Replica choose() {
+        List<Replica> usable = replicas.stream()
+                .filter(replica -> replica.isUsable(maxLagMs))
+                .toList();
+        if (usable.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            return usable.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .orElseThrow();
+        }
+        return usable.get(Math.floorMod(next.getAndIncrement(), usable.size()));
+    }
+
+    @FunctionalInterface
+    private interface Connect {
+        Connection from(DataSource dataSource) throws SQLException;
+    }
+
+    // The read-only target of the lazy proxy: a usable replica, else the primary
+    private final class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return read(DataSource::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return read(dataSource -> dataSource.getConnection(username, password));
+        }
+
+        private Connection read(Connect connect) throws SQLException {
+            if (ReadYourWritesInterceptor.isPrimaryRequired()) {
+                return connect.from(primaryConnections);
+            }
+            Replica replica = choose();
+            if (replica != null) {
+                try {
+                    return connect.from(replica.connections);
+                } catch (SQLFeatureNotSupportedException e) {
+                    throw e;
+                } catch (SQLException e) {
+                    log.warn("Replica {} refused a connection, reading from the primary instead", replica.name, e);
+                    replica.reachable = false;
+                }
+            }
+            return connect.from(primaryConnections);
+        }
+    }
+}
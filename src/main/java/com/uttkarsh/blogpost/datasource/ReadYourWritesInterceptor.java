@@ -0,0 +1,63 @@
+package com.uttkarsh.blogpost.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pins a user's reads to the primary for a short while after they send a write, so they see their own change
+ * even when the replicas are behind. Stickiness is kept per instance, keyed by username.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(Duration stickiness, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    // Recorded before the write runs: the response may reach the client before afterCompletion does
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            return true;
+        }
+        String username = authentication.getName();
+        if (!READ_METHODS.contains(request.getMethod())) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+        if (recentWriters.getIfPresent(username) != null) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        PRIMARY_REQUIRED.remove();
+    }
+}
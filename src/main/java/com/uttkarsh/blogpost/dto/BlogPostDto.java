@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -20,8 +21,12 @@ public class BlogPostDto {
 
     private List<String> existingImages;
 
+    private List<ImageVariants> imageVariants;
+
     private List<MultipartFile> newImages;
 
     private Long authorId;
+
+    private Instant updatedAt;
 }
 
@@ -0,0 +1,21 @@
+package com.uttkarsh.blogpost.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// List view of a post: the excerpt is cut by the database, so the full content never leaves it
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BlogPostSummary {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Long authorId;
+    private String firstImage;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
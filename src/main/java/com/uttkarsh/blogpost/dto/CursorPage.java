@@ -0,0 +1,19 @@
+package com.uttkarsh.blogpost.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private String prevCursor;
+    private int size;
+}
@@ -0,0 +1,15 @@
+package com.uttkarsh.blogpost.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Thumbnail and medium stay null until the background resize has finished
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageVariants {
+    private String original;
+    private String thumbnail;
+    private String medium;
+}
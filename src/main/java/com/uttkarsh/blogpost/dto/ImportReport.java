@@ -0,0 +1,15 @@
+package com.uttkarsh.blogpost.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Errors are listed up to a cap; failed always holds the full count
+@Data
+public class ImportReport {
+    private long imported;
+    private long failed;
+    private List<ImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,22 @@
+package com.uttkarsh.blogpost.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+// One line of an NDJSON export; the same lines can be fed back to the import endpoint
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostExportRecord {
+    private Long id;
+    private String title;
+    private String content;
+    private List<String> images;
+    private Long authorId;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.uttkarsh.blogpost.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One line of an NDJSON import; images must already be in the image store
+@Data
+public class PostImportRecord {
+    @NotBlank(message = "Title is required")
+    @Size(max = 200, message = "Title must not exceed 200 characters")
+    private String title;
+
+    @NotBlank(message = "Content is required")
+    private String content;
+
+    private List<String> images = new ArrayList<>();
+
+    // Defaults to the importing user
+    private Long authorId;
+}
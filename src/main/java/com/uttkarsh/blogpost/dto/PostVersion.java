@@ -0,0 +1,7 @@
+package com.uttkarsh.blogpost.dto;
+
+import java.time.Instant;
+
+// The columns that identify a post's current representation, read without content or images
+public record PostVersion(Long id, Instant createdAt, Instant updatedAt) {
+}
@@ -0,0 +1,5 @@
+package com.uttkarsh.blogpost.dto;
+
+// The unique columns of a user, read in bulk to warm the availability filters
+public record UserHandles(Long id, String username, String email) {
+}
@@ -0,0 +1,13 @@
+package com.uttkarsh.blogpost.event;
+
+import com.uttkarsh.blogpost.model.BlogPost;
+
+import java.util.List;
+
+// Posts created together, such as one import chunk; listeners handle the whole batch at once
+public record BlogPostBatchEvent(List<BlogPostEvent> events) {
+
+    public static BlogPostBatchEvent created(List<BlogPost> blogPosts) {
+        return new BlogPostBatchEvent(blogPosts.stream().map(BlogPostEvent::created).toList());
+    }
+}
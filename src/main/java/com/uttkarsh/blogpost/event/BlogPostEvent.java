@@ -0,0 +1,29 @@
+package com.uttkarsh.blogpost.event;
+
+import com.uttkarsh.blogpost.model.BlogPost;
+
+public record BlogPostEvent(Type type, Long postId, String title, String content, Long authorId) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BlogPostEvent created(BlogPost blogPost) {
+        return of(Type.CREATED, blogPost);
+    }
+
+    public static BlogPostEvent updated(BlogPost blogPost) {
+        return of(Type.UPDATED, blogPost);
+    }
+
+    public static BlogPostEvent deleted(Long postId) {
+        return new BlogPostEvent(Type.DELETED, postId, null, null, null);
+    }
+
+    private static BlogPostEvent of(Type type, BlogPost blogPost) {
+        return new BlogPostEvent(type, blogPost.getId(), blogPost.getTitle(), blogPost.getContent(),
+                blogPost.getAuthor() != null ? blogPost.getAuthor().getId() : null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.uttkarsh.blogpost.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.uttkarsh.blogpost.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidImageReferenceException extends RuntimeException {
+    public InvalidImageReferenceException(String message) {
+        super(message);
+    }
+}
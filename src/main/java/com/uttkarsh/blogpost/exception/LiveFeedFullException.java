@@ -0,0 +1,7 @@
+package com.uttkarsh.blogpost.exception;
+
+public class LiveFeedFullException extends RuntimeException {
+    public LiveFeedFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,329 @@
+package com.uttkarsh.blogpost.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.exception.LiveFeedFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes committed post changes to Server-Sent Events subscribers. Publishing never waits on a client, nor on
+ * the number of them: the committing thread serialises the event once, appends it to the replay window and
+ * wakes a dispatcher, which offers new events to every subscriber's bounded buffer. Each buffer is drained on a
+ * virtual thread of its own, so a client whose socket has stopped accepting data stalls only itself. A
+ * subscriber whose buffer overflows is too slow to keep up and is disconnected; it can reconnect with
+ * Last-Event-ID and catch up from the replay window, or is told to reload when it has fallen out of it. Bulk
+ * changes such as imports go out as a single reset. An idle subscriber holds a connection but no thread.
+ */
+@Component
+public class LiveFeedBroadcaster {
+
+    static final String POST_EVENT = "post";
+    static final String RESET_EVENT = "reset";
+
+    // Event ids are "<epoch>-<sequence>"; ids from before a restart can't be resumed and get a reset
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Deque<Message> replayWindow = new ArrayDeque<>();
+    private long sequence;
+    // Highest sequence handed to subscribers; guarded by replayWindow like sequence
+    private long dispatchedSequence;
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService liveFeedExecutor;
+    private final Counter evictions;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final int replaySize;
+    private final int maxSubscribers;
+
+    private record Message(long sequence, String id, String name, String data) {
+    }
+
+    private final class Subscriber {
+        private final long id;
+        private final SseEmitter emitter;
+        private final Queue<Message> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean evicted;
+        // Sequence of the last event queued for this subscriber; written on subscribe and then only by the dispatcher
+        private long lastQueued;
+
+        private Subscriber(long id, SseEmitter emitter) {
+            this.id = id;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // False when the buffer is full; the caller evicts
+        private boolean offer(Message message) {
+            return buffer.offer(message) && schedule();
+        }
+
+        private boolean schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    liveFeedExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Completing the emitter waits for any write in progress, so it happens here and never on the publisher
+        private void drain() {
+            do {
+                Message message;
+                while (!evicted && (message = buffer.poll()) != null) {
+                    try {
+                        send(message);
+                    } catch (IOException | RuntimeException e) {
+                        // The client went away; Spring completes the emitter and the callback removes us
+                        subscribers.remove(id);
+                        return;
+                    }
+                }
+                if (evicted) {
+                    emitter.complete();
+                    return;
+                }
+                scheduled.set(false);
+            } while ((evicted || !buffer.isEmpty()) && scheduled.compareAndSet(false, true));
+        }
+
+        private void send(Message message) throws IOException {
+            if (message.name() == null) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            emitter.send(SseEmitter.event().id(message.id()).name(message.name()).data(message.data()));
+        }
+    }
+
+    public LiveFeedBroadcaster(ObjectMapper objectMapper, ExecutorService liveFeedExecutor, MeterRegistry meterRegistry,
+                               @Value("${live-feed.timeout-ms}") long timeoutMs,
+                               @Value("${live-feed.buffer-size}") int bufferSize,
+                               @Value("${live-feed.replay-size}") int replaySize,
+                               @Value("${live-feed.max-subscribers}") int maxSubscribers) {
+        this.objectMapper = objectMapper;
+        this.liveFeedExecutor = liveFeedExecutor;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.maxSubscribers = maxSubscribers;
+        this.evictions = Counter.builder("live.feed.evictions")
+                .description("Subscribers disconnected for falling behind")
+                .register(meterRegistry);
+        Gauge.builder("live.feed.subscribers", subscribers, Map::size)
+                .description("Connected live feed subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream. Events after lastEventId are replayed first; if they are no longer in the window, or the id
+     * comes from another instance or before a restart, the stream starts with a reset event instead.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new LiveFeedFullException("Live feed is full, retry shortly");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(subscriberIds.incrementAndGet(), emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber.id));
+        emitter.onTimeout(() -> subscribers.remove(subscriber.id));
+        emitter.onError(e -> subscribers.remove(subscriber.id));
+
+        // Under the window's lock no event can slip between the replay and registration; the dispatcher skips
+        // everything up to lastQueued
+        synchronized (replayWindow) {
+            for (Message message : replayFor(lastEventId)) {
+                subscriber.offer(message);
+            }
+            subscriber.lastQueued = sequence;
+            subscribers.put(subscriber.id, subscriber);
+        }
+        return emitter;
+    }
+
+    private List<Message> replayFor(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        long lastSequence = parseSequence(lastEventId);
+        Message oldest = replayWindow.peekFirst();
+        long missedFrom = lastSequence + 1;
+        boolean covered = lastSequence >= 0 && lastSequence <= sequence
+                && (missedFrom > sequence || (oldest != null && oldest.sequence() <= missedFrom));
+        List<Message> missed = new ArrayList<>();
+        if (covered) {
+            for (Message message : replayWindow) {
+                if (message.sequence() > lastSequence) {
+                    missed.add(message);
+                }
+            }
+        }
+        if (!covered || missed.size() > bufferSize) {
+            return List.of(new Message(sequence, eventId(sequence), RESET_EVENT, "{}"));
+        }
+        return missed;
+    }
+
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.indexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostEvent(BlogPostEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(LiveFeedEvent.of(event));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        publish(POST_EVENT, data);
+    }
+
+    // An import chunk would overflow every buffer at once; one reset tells clients to reload the listing instead
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostBatchEvent(BlogPostBatchEvent batch) {
+        if (!batch.events().isEmpty()) {
+            publish(RESET_EVENT, "{}");
+        }
+    }
+
+    private void publish(String name, String data) {
+        synchronized (replayWindow) {
+            long next = ++sequence;
+            replayWindow.addLast(new Message(next, eventId(next), name, data));
+            if (replayWindow.size() > replaySize) {
+                replayWindow.removeFirst();
+            }
+        }
+        requestDispatch();
+    }
+
+    // Wake-ups coalesce into one queued dispatch; a rejected one is retried by the next event or heartbeat
+    private void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            try {
+                liveFeedExecutor.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                dispatchRequested.set(false);
+            }
+        }
+    }
+
+    private void dispatch() {
+        if (!dispatchLock.tryLock()) {
+            return;
+        }
+        try {
+            do {
+                dispatchRequested.set(false);
+                List<Message> pending = new ArrayList<>();
+                long oldest;
+                synchronized (replayWindow) {
+                    for (Message message : replayWindow) {
+                        if (message.sequence() > dispatchedSequence) {
+                            pending.add(message);
+                        }
+                    }
+                    oldest = replayWindow.isEmpty() ? sequence + 1 : replayWindow.peekFirst().sequence();
+                    dispatchedSequence = sequence;
+                }
+                if (!pending.isEmpty()) {
+                    deliver(pending, oldest);
+                }
+            } while (dispatchRequested.get());
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    // A subscriber that missed events already trimmed from the window (publishing outran the writers) gets a reset
+    private void deliver(List<Message> pending, long oldest) {
+        Message last = pending.get(pending.size() - 1);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.lastQueued >= last.sequence()) {
+                continue;
+            }
+            boolean delivered = true;
+            if (subscriber.lastQueued + 1 < oldest) {
+                delivered = subscriber.offer(new Message(last.sequence(), last.id(), RESET_EVENT, "{}"));
+            } else {
+                for (Message message : pending) {
+                    if (message.sequence() > subscriber.lastQueued && !(delivered = subscriber.offer(message))) {
+                        break;
+                    }
+                }
+            }
+            subscriber.lastQueued = last.sequence();
+            if (!delivered) {
+                evict(subscriber);
+            }
+        }
+    }
+
+    // Comments keep idle connections open through proxies and find clients that vanished without closing
+    @Scheduled(fixedDelayString = "${live-feed.heartbeat-interval-ms}")
+    public void heartbeat() {
+        requestDispatch();
+        Message heartbeat = new Message(-1, null, null, null);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (!subscriber.offer(heartbeat)) {
+                evict(subscriber);
+            }
+        }
+    }
+
+    // A stuck writer finishes its current send first; if no writer can be had, the emitter's timeout closes it
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.id) != null) {
+            evictions.increment();
+            subscriber.evicted = true;
+            subscriber.buffer.clear();
+            subscriber.schedule();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.uttkarsh.blogpost.live;
+
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+
+// What subscribers receive: enough to update a listing, without the post content
+public record LiveFeedEvent(BlogPostEvent.Type type, Long postId, String title, Long authorId) {
+
+    public static LiveFeedEvent of(BlogPostEvent event) {
+        return new LiveFeedEvent(event.type(), event.postId(), event.title(), event.authorId());
+    }
+}
@@ -2,6 +2,7 @@ package com.uttkarsh.blogpost.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,12 +13,17 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "blog_posts")
+@Table(name = "blog_posts", indexes = {
+        @Index(name = "idx_blog_posts_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_blog_posts_author_created_at_id", columnList = "author_id, created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class BlogPost {
 
+    // Pooled sequence ids let Hibernate batch inserts; each nextval reserves a block of 50
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blog_posts_seq")
+    @SequenceGenerator(name = "blog_posts_seq", sequenceName = "blog_posts_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,8 +32,11 @@ public class BlogPost {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // Loads the images of a whole page of posts in one statement instead of one per post
     @ElementCollection
-    @CollectionTable(name = "blog_post_images", joinColumns = @JoinColumn(name = "blog_post_id"))
+    @BatchSize(size = 100)
+    @CollectionTable(name = "blog_post_images", joinColumns = @JoinColumn(name = "blog_post_id"),
+            indexes = @Index(name = "idx_blog_post_images_blog_post_id", columnList = "blog_post_id"))
     @Column(name = "image_url")
     private List<String> images = new ArrayList<>();
 
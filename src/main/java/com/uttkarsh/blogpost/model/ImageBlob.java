@@ -0,0 +1,26 @@
+package com.uttkarsh.blogpost.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+
+    // SHA-256 of the content plus the detected image extension
+    @Id
+    private String fileName;
+
+    // Number of blog_post_images rows pointing at this blob
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
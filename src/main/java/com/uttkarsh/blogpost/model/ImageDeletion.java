@@ -0,0 +1,31 @@
+package com.uttkarsh.blogpost.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Outbox row: a released image whose file is checked and removed by ImageDeletionService after commit
+@Data
+@Entity
+@Table(name = "image_deletions")
+public class ImageDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
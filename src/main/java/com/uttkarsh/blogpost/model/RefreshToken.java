@@ -0,0 +1,36 @@
+package com.uttkarsh.blogpost.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Entity
+@Table(name = "refresh_tokens", indexes = @Index(name = "idx_refresh_tokens_family", columnList = "family"))
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the token; the token itself is only ever held by the client
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // All tokens rotated from one login share a family, which is revoked as a whole when a used token reappears
+    @Column(nullable = false, length = 36)
+    private String family;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private Instant revokedAt;
+}
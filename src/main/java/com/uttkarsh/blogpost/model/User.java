@@ -17,18 +17,28 @@ import java.util.stream.Collectors;
 
 @Data
 @Entity
-@Table(name = "users")
+// Named so AuthService can tell which one a failed registration insert hit
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+}, indexes = {
+        // Lets every instance pick up registrations made on the others, see UserAvailabilityService
+        @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails {
 
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
@@ -40,6 +50,10 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Set<Role> roles = new HashSet<>();
 
+    // Maintained by UserRepository.adjustPostCount; never written from the entity
+    @Column(name = "post_count", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long postCount;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
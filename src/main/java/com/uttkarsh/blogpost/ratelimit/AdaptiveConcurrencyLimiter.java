@@ -0,0 +1,70 @@
+package com.uttkarsh.blogpost.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global cap on in-flight requests that follows observed latency (AIMD). While the limit is in use, every request
+ * finishing under the latency target raises it by 1/limit, about one per round of requests; a request over the
+ * target, or failing with a server error, cuts it by the backoff ratio. Requests over the limit are refused at
+ * once instead of waiting in a queue.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // The limit as a double, so additive increases smaller than one accumulate
+    private final AtomicLong limitBits;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        boolean overloaded = failed || latencyNanos > latencyTargetNanos;
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next;
+            if (overloaded) {
+                next = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightBefore * 2 >= limit) {
+                // Only grow when the current limit is actually being used
+                next = Math.min(maxLimit, limit + 1 / limit);
+            } else {
+                return;
+            }
+            if (next == limit || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,200 @@
+package com.uttkarsh.blogpost.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes back before work reaches the database. Each caller, keyed by JWT subject or else by client IP, has a
+ * token bucket, and every request takes tokens according to its endpoint's cost; an empty bucket answers 429.
+ * Requests that pass then need a slot in the global adaptive concurrency limit, or get 503. Endpoints that are
+ * slow by design (uploads, import, export, password hashing) are exempt from that limit, since their latency says
+ * nothing about load and would only drag it down. Actuator and image requests bypass the filter entirely. Runs
+ * after JwtAuthenticationFilter so the principal is known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private record CostRule(RequestMatcher matcher, long cost) {
+    }
+
+    private final boolean enabled;
+    private final long capacity;
+    private final double refillPerSecond;
+    private final long defaultCost;
+    private final List<CostRule> costRules;
+    private final List<RequestMatcher> concurrencyExempt;
+    private final Cache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    public RateLimitFilter(@Value("${rate-limit.enabled}") boolean enabled,
+                           @Value("${rate-limit.capacity}") long capacity,
+                           @Value("${rate-limit.refill-per-second}") double refillPerSecond,
+                           @Value("${rate-limit.default-cost}") long defaultCost,
+                           @Value("${rate-limit.costs}") List<String> costs,
+                           @Value("${rate-limit.max-callers}") long maxCallers,
+                           @Value("${rate-limit.concurrency.initial-limit}") int initialLimit,
+                           @Value("${rate-limit.concurrency.min-limit}") int minLimit,
+                           @Value("${rate-limit.concurrency.max-limit}") int maxLimit,
+                           @Value("${rate-limit.concurrency.latency-target-ms}") long latencyTargetMs,
+                           @Value("${rate-limit.concurrency.backoff-ratio}") double backoffRatio,
+                           @Value("${rate-limit.concurrency.exempt}") List<String> concurrencyExempt,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.defaultCost = defaultCost;
+        this.costRules = parseCosts(costs);
+        this.concurrencyExempt = parseEndpoints(concurrencyExempt);
+        // An idle caller's bucket has refilled completely once it expires, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos((long) (TimeUnit.SECONDS.toNanos(1) * capacity / refillPerSecond)))
+                .maximumSize(maxCallers)
+                .build();
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(latencyTargetMs), backoffRatio);
+        this.rateLimited = Counter.builder("http.requests.shed")
+                .description("Requests refused before reaching a controller")
+                .tag("reason", "rate-limit")
+                .register(meterRegistry);
+        this.concurrencyLimited = Counter.builder("http.requests.shed")
+                .description("Requests refused before reaching a controller")
+                .tag("reason", "concurrency-limit")
+                .register(meterRegistry);
+        Gauge.builder("http.requests.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on in-flight requests")
+                .register(meterRegistry);
+        Gauge.builder("http.requests.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently holding a concurrency slot")
+                .register(meterRegistry);
+    }
+
+    // Each rule reads "METHOD /path/pattern=cost"; the first match wins
+    private static List<CostRule> parseCosts(List<String> costs) {
+        List<CostRule> rules = new ArrayList<>();
+        for (String rule : costs) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            String[] endpointAndCost = rule.trim().split("=");
+            if (endpointAndCost.length != 2) {
+                throw new IllegalArgumentException("Invalid rate-limit cost rule: " + rule);
+            }
+            rules.add(new CostRule(endpoint(endpointAndCost[0]), Long.parseLong(endpointAndCost[1].trim())));
+        }
+        return rules;
+    }
+
+    private static List<RequestMatcher> parseEndpoints(List<String> endpoints) {
+        return endpoints.stream()
+                .filter(endpoint -> !endpoint.isBlank())
+                .map(RateLimitFilter::endpoint)
+                .toList();
+    }
+
+    // "METHOD /path/pattern"
+    private static RequestMatcher endpoint(String endpoint) {
+        String[] methodAndPattern = endpoint.trim().split("\\s+");
+        if (methodAndPattern.length != 2) {
+            throw new IllegalArgumentException("Invalid rate-limit endpoint: " + endpoint);
+        }
+        return new AntPathRequestMatcher(methodAndPattern[1], methodAndPattern[0]);
+    }
+
+    // Images are static files served without touching the database; a page of them would drain a caller's bucket,
+    // and long transfers would read as overload to the adaptive limit
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || path.startsWith("/actuator/") || path.startsWith("/images/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(callerKey(request), key -> new TokenBucket(capacity, refillPerSecond, now));
+        long waitNanos = bucket.tryConsume(Math.min(costOf(request), capacity), now);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)),
+                    "Too many requests, slow down");
+            return;
+        }
+
+        if (isConcurrencyExempt(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyLimited.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Server is busy, retry shortly");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static String callerKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private long costOf(HttpServletRequest request) {
+        for (CostRule rule : costRules) {
+            if (rule.matcher().matches(request)) {
+                return rule.cost();
+            }
+        }
+        return defaultCost;
+    }
+
+    private boolean isConcurrencyExempt(HttpServletRequest request) {
+        return concurrencyExempt.stream().anyMatch(matcher -> matcher.matches(request));
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+}
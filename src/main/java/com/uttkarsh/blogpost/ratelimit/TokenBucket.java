@@ -0,0 +1,38 @@
+package com.uttkarsh.blogpost.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: instead of a token count and a refill timestamp, one AtomicLong
+ * holds the time at which the bucket would be full again. Taking tokens pushes that time forward by their
+ * refill time, and is refused when it would land more than a full bucket's worth of refill time ahead of now.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    // Returns 0 when the tokens were taken, otherwise the nanoseconds until they would be available
+    public long tryConsume(long tokens, long nowNanos) {
+        long cost = tokens * nanosPerToken;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + cost;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
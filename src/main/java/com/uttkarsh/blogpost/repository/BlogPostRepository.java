@@ -1,15 +1,97 @@
 package com.uttkarsh.blogpost.repository;
 
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.PostVersion;
 import com.uttkarsh.blogpost.model.BlogPost;
 import com.uttkarsh.blogpost.model.User;
-import org.springframework.data.domain.Page;
+import com.uttkarsh.blogpost.search.SearchDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
-    Page<BlogPost> findByTitleContainingIgnoreCase(String title, Pageable pageable);
-    Page<BlogPost> findByAuthor(User author, Pageable pageable);
-    Page<BlogPost> findByTitleContainingIgnoreCaseAndAuthor(String title, User author, Pageable pageable);
+public interface BlogPostRepository extends JpaRepository<BlogPost, Long>, BlogPostRepositoryCustom {
+
+    // The smallest image URL stands in for the first image, since the collection keeps no order
+    String SUMMARY = "select new com.uttkarsh.blogpost.dto.BlogPostSummary(p.id, p.title, substring(p.content, 1, 300), " +
+            "p.author.id, (select min(i) from BlogPost q join q.images i where q.id = p.id), p.createdAt, p.updatedAt) " +
+            "from BlogPost p";
+
+    @EntityGraph(attributePaths = "images")
+    Optional<BlogPost> findWithImagesById(Long id);
+
+    // Listings are read as slices (one extra row, no count query); totals come from PostCountService when asked for
+    Slice<BlogPost> findPostsBy(Pageable pageable);
+    Slice<BlogPost> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+    Slice<BlogPost> findByAuthor(User author, Pageable pageable);
+    Slice<BlogPost> findByTitleContainingIgnoreCaseAndAuthor(String title, User author, Pageable pageable);
+
+    long countByTitleContainingIgnoreCase(String title);
+    long countByTitleContainingIgnoreCaseAndAuthor(String title, User author);
+
+    Slice<PostVersion> findVersionsBy(Pageable pageable);
+    Slice<PostVersion> findVersionsByTitleContainingIgnoreCase(String title, Pageable pageable);
+    Slice<PostVersion> findVersionsByAuthor(User author, Pageable pageable);
+    Slice<PostVersion> findVersionsByTitleContainingIgnoreCaseAndAuthor(String title, User author, Pageable pageable);
+
+    @Query(SUMMARY)
+    Slice<BlogPostSummary> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY + " where locate(lower(:title), lower(p.title)) > 0")
+    Slice<BlogPostSummary> findSummariesByTitle(String title, Pageable pageable);
+
+    @Query(SUMMARY + " where p.author.id = :authorId")
+    Slice<BlogPostSummary> findSummariesByAuthorId(Long authorId, Pageable pageable);
+
+    @Query(SUMMARY + " where locate(lower(:title), lower(p.title)) > 0 and p.author.id = :authorId")
+    Slice<BlogPostSummary> findSummariesByTitleAndAuthorId(String title, Long authorId, Pageable pageable);
+
+    @Query(SUMMARY + " where p.id in :ids")
+    List<BlogPostSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query("select new com.uttkarsh.blogpost.dto.PostVersion(p.id, p.createdAt, p.updatedAt) from BlogPost p where p.id in :ids")
+    List<PostVersion> findVersionsByIdIn(Collection<Long> ids);
+
+    @Query("select p.updatedAt from BlogPost p where p.id = :id")
+    Optional<Instant> findUpdatedAtById(Long id);
+
+    // Bumps updatedAt when a post's representation changes without an edit, e.g. when image derivatives appear
+    @Transactional
+    @Modifying
+    @Query("update BlogPost p set p.updatedAt = :updatedAt where p.id in :ids")
+    int touch(Collection<Long> ids, Instant updatedAt);
+
+    @Query("select distinct p.id from BlogPost p join p.images i where i = :imageUrl")
+    List<Long> findIdsByImageUrl(String imageUrl);
+
+    @Query("select distinct i from BlogPost p join p.images i where i in :imageUrls")
+    List<String> findReferencedImageUrls(Collection<String> imageUrls);
+
+    @Query("select new com.uttkarsh.blogpost.search.SearchDocument(p.id, p.title, p.content, p.author.id) " +
+            "from BlogPost p where p.id > :afterId order by p.id")
+    List<SearchDocument> findSearchDocuments(Long afterId, Pageable pageable);
+
+    // Forward-only cursor for exports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from BlogPost p where (:authorId is null or p.author.id = :authorId) " +
+            "and (:updatedFrom is null or p.updatedAt >= :updatedFrom) " +
+            "and (:updatedTo is null or p.updatedAt < :updatedTo) order by p.id")
+    Stream<BlogPost> streamForExport(Long authorId, Instant updatedFrom, Instant updatedTo);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.PostVersion;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.util.PostCursor;
+
+import java.util.List;
+
+public interface BlogPostRepositoryCustom {
+    List<BlogPost> findKeyset(String title, Long authorId, PostCursor cursor, int limit);
+
+    List<PostVersion> findKeysetVersions(String title, Long authorId, PostCursor cursor, int limit);
+
+    List<BlogPostSummary> findKeysetSummaries(String title, Long authorId, PostCursor cursor, int limit);
+}
@@ -0,0 +1,102 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.PostVersion;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.util.PostCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BlogPostRepositoryCustomImpl implements BlogPostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Seeks on (createdAt, id) instead of OFFSET so every page costs the same, and never issues a COUNT
+    @Override
+    public List<BlogPost> findKeyset(String title, Long authorId, PostCursor cursor, int limit) {
+        return findKeyset(BlogPost.class, (cb, query, post) -> post, title, authorId, cursor, limit);
+    }
+
+    @Override
+    public List<PostVersion> findKeysetVersions(String title, Long authorId, PostCursor cursor, int limit) {
+        return findKeyset(PostVersion.class,
+                (cb, query, post) -> cb.construct(PostVersion.class, post.get("id"), post.get("createdAt"), post.get("updatedAt")),
+                title, authorId, cursor, limit);
+    }
+
+    // Same columns as BlogPostRepository.SUMMARY
+    @Override
+    public List<BlogPostSummary> findKeysetSummaries(String title, Long authorId, PostCursor cursor, int limit) {
+        return findKeyset(BlogPostSummary.class, (cb, query, post) -> {
+            Subquery<String> firstImage = query.subquery(String.class);
+            Root<BlogPost> imagePost = firstImage.from(BlogPost.class);
+            Join<BlogPost, String> image = imagePost.join("images");
+            firstImage.select(cb.least(image)).where(cb.equal(imagePost.get("id"), post.get("id")));
+            return cb.construct(BlogPostSummary.class, post.get("id"), post.get("title"),
+                    cb.substring(post.<String>get("content"), 1, 300), post.get("author").get("id"), firstImage,
+                    post.get("createdAt"), post.get("updatedAt"));
+        }, title, authorId, cursor, limit);
+    }
+
+    @FunctionalInterface
+    private interface KeysetSelection<T> {
+        Selection<? extends T> select(CriteriaBuilder cb, CriteriaQuery<T> query, Root<BlogPost> post);
+    }
+
+    private <T> List<T> findKeyset(Class<T> type, KeysetSelection<T> selection,
+                                   String title, Long authorId, PostCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<BlogPost> post = query.from(BlogPost.class);
+        Path<Instant> createdAt = post.get("createdAt");
+        Path<Long> id = post.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (title != null) {
+            predicates.add(cb.like(cb.lower(post.<String>get("title")), "%" + escapeLike(title.toLowerCase()) + "%", '\\'));
+        }
+        if (authorId != null) {
+            predicates.add(cb.equal(post.get("author").get("id"), authorId));
+        }
+
+        boolean backward = cursor != null && cursor.backward();
+        if (cursor != null) {
+            if (backward) {
+                predicates.add(cb.or(
+                        cb.greaterThan(createdAt, cursor.createdAt()),
+                        cb.and(cb.equal(createdAt, cursor.createdAt()), cb.greaterThan(id, cursor.id()))));
+            } else {
+                predicates.add(cb.or(
+                        cb.lessThan(createdAt, cursor.createdAt()),
+                        cb.and(cb.equal(createdAt, cursor.createdAt()), cb.lessThan(id, cursor.id()))));
+            }
+        }
+
+        query.select(selection.select(cb, query, post))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(backward
+                        ? List.of(cb.asc(createdAt), cb.asc(id))
+                        : List.of(cb.desc(createdAt), cb.desc(id)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,37 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.model.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into image_blobs (file_name, ref_count, created_at) values (:fileName, 1, now()) " +
+            "on conflict (file_name) do update set ref_count = image_blobs.ref_count + 1", nativeQuery = true)
+    void acquire(String fileName);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into image_blobs (file_name, ref_count, created_at) values (:fileName, :count, now()) " +
+            "on conflict (file_name) do update set ref_count = image_blobs.ref_count + :count", nativeQuery = true)
+    void acquire(String fileName, long count);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount - 1 where b.fileName = :fileName and b.refCount > 0")
+    int release(String fileName);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ImageBlob b where b.fileName = :fileName")
+    Optional<ImageBlob> lockByFileName(String fileName);
+}
@@ -0,0 +1,22 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.model.ImageDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+    List<ImageDeletion> findByOrderById(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageDeletion d set d.attempts = d.attempts + 1 where d.id in :ids")
+    int recordAttempt(Collection<Long> ids);
+}
@@ -0,0 +1,13 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.model.ImageDerivativeJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImageDerivativeJobRepository extends JpaRepository<ImageDerivativeJob, String> {
+    List<ImageDerivativeJob> findByStatusOrderByCreatedAt(ImageDerivativeJob.Status status, Pageable pageable);
+}
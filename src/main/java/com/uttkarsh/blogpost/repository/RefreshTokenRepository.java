@@ -0,0 +1,29 @@
+package com.uttkarsh.blogpost.repository;
+
+import com.uttkarsh.blogpost.model.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Locked so two concurrent refreshes with the same token can't both rotate it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> lockByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :revokedAt where t.family = :family and t.revokedAt is null")
+    int revokeFamily(String family, Instant revokedAt);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :before")
+    int deleteExpired(Instant before);
+}
@@ -1,8 +1,14 @@
 package com.uttkarsh.blogpost.repository;
 
+import com.uttkarsh.blogpost.dto.UserHandles;
 import com.uttkarsh.blogpost.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +16,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select u.postCount from User u where u.id = :id")
+    Optional<Long> findPostCountById(Long id);
+
+    // Runs in the transaction that creates or deletes the posts, so the counter commits or rolls back with them
+    @Modifying
+    @Query("update User u set u.postCount = u.postCount + :delta where u.id = :id")
+    int adjustPostCount(Long id, long delta);
+
+    @Query("select new com.uttkarsh.blogpost.dto.UserHandles(u.id, u.username, u.email) from User u " +
+            "where u.id > :afterId order by u.id")
+    List<UserHandles> findHandles(Long afterId, Pageable pageable);
+
+    @Query("select new com.uttkarsh.blogpost.dto.UserHandles(u.id, u.username, u.email) from User u where u.createdAt >= :since")
+    List<UserHandles> findHandlesCreatedSince(Instant since);
 }
@@ -0,0 +1,253 @@
+package com.uttkarsh.blogpost.search;
+
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over post titles and content, ranked with BM25F. Kept current from
+ * committed {@link BlogPostEvent}s and rebuilt from the database on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double CONTENT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final Comparator<Map.Entry<Long, Double>> RANKING =
+            Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+    private final BlogPostRepository blogPostRepository;
+
+    @Value("${search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalTitleLength;
+    private long totalContentLength;
+
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    private record Posting(int titleFrequency, int contentFrequency) {
+    }
+
+    private record IndexedDocument(Long authorId, int titleLength, int contentLength, Set<String> terms) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("post-search-rebuild").start(this::rebuild);
+    }
+
+    public void rebuild() {
+        rebuilding = true;
+        try {
+            long afterId = 0;
+            long indexed = 0;
+            List<SearchDocument> batch;
+            do {
+                batch = blogPostRepository.findSearchDocuments(afterId, PageRequest.of(0, rebuildBatchSize));
+                lock.writeLock().lock();
+                try {
+                    for (SearchDocument document : batch) {
+                        // A newer committed change has already been applied, keep it
+                        if (!touchedDuringRebuild.contains(document.id())) {
+                            remove(document.id());
+                            add(document);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                indexed += batch.size();
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == rebuildBatchSize);
+            ready = true;
+            log.info("Post search index rebuilt with {} documents", indexed);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild post search index", e);
+        } finally {
+            rebuilding = false;
+            touchedDuringRebuild.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostEvent(BlogPostEvent event) {
+        apply(List.of(event));
+    }
+
+    // A whole import chunk is indexed under one write lock
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostBatchEvent(BlogPostBatchEvent batch) {
+        apply(batch.events());
+    }
+
+    private void apply(List<BlogPostEvent> events) {
+        lock.writeLock().lock();
+        try {
+            for (BlogPostEvent event : events) {
+                if (rebuilding) {
+                    touchedDuringRebuild.add(event.postId());
+                }
+                remove(event.postId());
+                if (event.type() != BlogPostEvent.Type.DELETED) {
+                    add(new SearchDocument(event.postId(), event.title(), event.content(), event.authorId()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, Long authorId, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return new SearchResult(List.of(), 0);
+            }
+            double averageTitleLength = Math.max(1.0, (double) totalTitleLength / documentCount);
+            double averageContentLength = Math.max(1.0, (double) totalContentLength / documentCount);
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                scoreTerm(term, 1.0, authorId, documentCount, averageTitleLength, averageContentLength, termScores);
+                if (term.length() >= MIN_PREFIX_LENGTH) {
+                    int expansions = 0;
+                    for (String expanded : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        scoreTerm(expanded, PREFIX_WEIGHT, authorId, documentCount, averageTitleLength, averageContentLength, termScores);
+                    }
+                }
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            // Keep only the top offset + limit hits instead of sorting every match
+            long wanted = offset + limit;
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(RANKING);
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING.reversed());
+            List<Long> ids = ranked.stream()
+                    .skip(offset)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new SearchResult(ids, scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scoreTerm(String term, double weight, Long authorId, int documentCount,
+                           double averageTitleLength, double averageContentLength, Map<Long, Double> termScores) {
+        Map<Long, Posting> matches = postings.get(term);
+        if (matches == null) {
+            return;
+        }
+
+        double idf = Math.log(1 + (documentCount - matches.size() + 0.5) / (matches.size() + 0.5));
+        for (Map.Entry<Long, Posting> match : matches.entrySet()) {
+            IndexedDocument document = documents.get(match.getKey());
+            if (authorId != null && !authorId.equals(document.authorId())) {
+                continue;
+            }
+            Posting posting = match.getValue();
+            double frequency = TITLE_WEIGHT * posting.titleFrequency() / (1 - B + B * document.titleLength() / averageTitleLength)
+                    + CONTENT_WEIGHT * posting.contentFrequency() / (1 - B + B * document.contentLength() / averageContentLength);
+            double score = weight * idf * frequency * (K1 + 1) / (frequency + K1);
+            termScores.merge(match.getKey(), score, Math::max);
+        }
+    }
+
+    private void add(SearchDocument document) {
+        List<String> titleTokens = Tokenizer.tokenize(document.title());
+        List<String> contentTokens = Tokenizer.tokenize(document.content());
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        titleTokens.forEach(token -> frequencies.computeIfAbsent(token, t -> new int[2])[0]++);
+        contentTokens.forEach(token -> frequencies.computeIfAbsent(token, t -> new int[2])[1]++);
+
+        frequencies.forEach((term, frequency) -> postings
+                .computeIfAbsent(term, t -> new HashMap<>())
+                .put(document.id(), new Posting(frequency[0], frequency[1])));
+
+        documents.put(document.id(), new IndexedDocument(document.authorId(), titleTokens.size(), contentTokens.size(),
+                Collections.unmodifiableSet(frequencies.keySet())));
+        totalTitleLength += titleTokens.size();
+        totalContentLength += contentTokens.size();
+    }
+
+    private void remove(Long id) {
+        IndexedDocument document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+
+        for (String term : document.terms()) {
+            Map<Long, Posting> matches = postings.get(term);
+            if (matches != null) {
+                matches.remove(id);
+                if (matches.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalTitleLength -= document.titleLength();
+        totalContentLength -= document.contentLength();
+    }
+}
@@ -0,0 +1,4 @@
+package com.uttkarsh.blogpost.search;
+
+public record SearchDocument(Long id, String title, String content, Long authorId) {
+}
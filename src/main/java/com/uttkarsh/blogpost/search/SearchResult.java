@@ -0,0 +1,6 @@
+package com.uttkarsh.blogpost.search;
+
+import java.util.List;
+
+public record SearchResult(List<Long> ids, long total) {
+}
@@ -0,0 +1,69 @@
+package com.uttkarsh.blogpost.security;
+
+import com.uttkarsh.blogpost.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs hashing and verification on a small dedicated pool with a bounded queue. BCrypt then uses at most that
+ * pool's threads worth of CPU however many logins arrive; once the queue is full, callers are refused at once
+ * with PasswordHashingBusyException instead of piling up.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Password hashing requests refused because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many logins in progress, retry shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
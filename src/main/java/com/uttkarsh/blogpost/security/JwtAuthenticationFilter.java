@@ -1,28 +1,63 @@
 package com.uttkarsh.blogpost.security;
 
 import com.uttkarsh.blogpost.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String ACCESS_TOKEN_PARAMETER = "access_token";
+    private static final String LIVE_FEED_PATH = "/api/posts/live";
+
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+
+    @Value("${jwt.stateless-principal}")
+    private boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService,
+                                   VerifiedTokenCache verifiedTokenCache, MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.validTokenTimer = verificationTimer(meterRegistry, "valid");
+        this.invalidTokenTimer = verificationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Time to turn a bearer token into a principal, including verified-token cache hits")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Images are public, so their reads skip token parsing entirely
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/images/");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -30,22 +65,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
-        final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        final String jwt = resolveToken(request);
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7);
-        username = jwtTokenProvider.extractUsername(jwt);
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtTokenProvider.validateToken(jwt, (User) userDetails)) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            VerifiedToken verifiedToken = statelessPrincipal
+                    ? verifiedTokenCache.get(jwt, this::verify)
+                    : verify(jwt);
+            (verifiedToken != null ? validTokenTimer : invalidTokenTimer)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (verifiedToken != null) {
+                User principal = verifiedToken.principal();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
@@ -55,4 +92,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // EventSource can't send headers, so the live feed also accepts the token as a query parameter
+    private static String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        if ("GET".equals(request.getMethod()) && request.getRequestURI().equals(request.getContextPath() + LIVE_FEED_PATH)) {
+            String token = request.getParameter(ACCESS_TOKEN_PARAMETER);
+            return token != null && !token.isBlank() ? token : null;
+        }
+        return null;
+    }
+
+    // Parses and verifies the token once; the principal comes from its claims unless they predate the uid claim
+    private VerifiedToken verify(String jwt) {
+        try {
+            Claims claims = jwtTokenProvider.parseClaims(jwt);
+            User user = statelessPrincipal ? jwtTokenProvider.extractUser(claims) : null;
+            if (user == null && userDetailsService.loadUserByUsername(claims.getSubject()) instanceof User loaded) {
+                user = loaded;
+            }
+            return user != null ? new VerifiedToken(user, claims.getExpiration().toInstant()) : null;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.uttkarsh.blogpost.security;
 
+import com.uttkarsh.blogpost.model.Role;
 import com.uttkarsh.blogpost.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -11,24 +13,33 @@ import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs;
 
     private final Key key;
+    private final JwtParser jwtParser;
 
     public JwtTokenProvider(@Value("${jwt.secret}") String secret) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", user.getRoles());
+        claims.put(ROLES_CLAIM, user.getRoles());
+        claims.put(USER_ID_CLAIM, user.getId());
         return createToken(claims, user.getUsername());
     }
 
@@ -43,8 +54,29 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token, User user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(user.getUsername()) && !claims.getExpiration().before(new Date()));
+    }
+
+    // Verifies signature and expiry, throwing a JwtException when either fails
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    // Builds a detached principal from verified claims, or null for tokens issued without a user id
+    public User extractUser(Claims claims) {
+        if (!(claims.get(USER_ID_CLAIM) instanceof Number userId) || !(claims.get(ROLES_CLAIM) instanceof List<?> roles)) {
+            return null;
+        }
+
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setUsername(claims.getSubject());
+        Set<Role> userRoles = roles.stream()
+                .map(role -> Role.valueOf(role.toString()))
+                .collect(Collectors.toSet());
+        user.setRoles(userRoles);
+        return user;
     }
 
     public String extractUsername(String token) {
@@ -61,10 +93,6 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,45 @@
+package com.uttkarsh.blogpost.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records how long the wrapped encoder spends hashing and verifying passwords, so BCrypt's share of
+ * registration and login latency shows up separately from the database work around it.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Boolean matches = matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+        return Boolean.TRUE.equals(matches);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
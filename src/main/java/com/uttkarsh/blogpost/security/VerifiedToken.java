@@ -0,0 +1,22 @@
+package com.uttkarsh.blogpost.security;
+
+import com.uttkarsh.blogpost.model.User;
+
+import java.time.Instant;
+import java.util.Set;
+
+// The principal keeps only id, username and roles, so cached entries hold no password hash or email
+public record VerifiedToken(User principal, Instant expiresAt) {
+
+    public VerifiedToken {
+        principal = slim(principal);
+    }
+
+    private static User slim(User user) {
+        User principal = new User();
+        principal.setId(user.getId());
+        principal.setUsername(user.getUsername());
+        principal.setRoles(Set.copyOf(user.getRoles()));
+        return principal;
+    }
+}
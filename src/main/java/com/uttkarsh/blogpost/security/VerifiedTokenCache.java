@@ -0,0 +1,61 @@
+package com.uttkarsh.blogpost.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Tokens that already passed signature and expiry checks, keyed by their SHA-256 so raw bearer tokens are
+ * never retained. Each entry lives exactly until the token's own expiry.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache-size}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Returns null, without caching, when the verifier rejects the token
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        return cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -2,19 +2,24 @@ package com.uttkarsh.blogpost.service;
 
 import com.uttkarsh.blogpost.dto.AuthenticationResponse;
 import com.uttkarsh.blogpost.dto.UserDto;
+import com.uttkarsh.blogpost.exception.UserAlreadyExistsException;
 import com.uttkarsh.blogpost.model.Role;
 import com.uttkarsh.blogpost.model.User;
 import com.uttkarsh.blogpost.repository.UserRepository;
 import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
@@ -24,28 +29,58 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final UserAvailabilityService userAvailabilityService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // One insert: the unique constraints decide, which also settles two sign-ups racing for the same name
+    @Timed(value = "auth.requests", extraTags = {"operation", "register"})
     public AuthenticationResponse register(UserDto userDto) {
-        if (userRepository.existsByUsername(userDto.getUsername())) {
-            throw new RuntimeException("Username is already taken");
-        }
-        if (userRepository.existsByEmail(userDto.getEmail())) {
-            throw new RuntimeException("Email is already in use");
-        }
-
         User user = new User();
         user.setUsername(userDto.getUsername());
         user.setEmail(userDto.getEmail());
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
         user.setRoles(Collections.singleton(Role.ROLE_USER));
 
-        User savedUser = userRepository.save(user);
+        // The violation aborts the transaction, so it has to be rolled back before duplicateUser can look anything up
+        try {
+            return transactionTemplate.execute(status -> {
+                User savedUser = userRepository.saveAndFlush(user);
+                userAvailabilityService.record(savedUser.getUsername(), savedUser.getEmail());
+                return tokensFor(savedUser, refreshTokenService.issue(savedUser));
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser(e, user);
+        }
+    }
 
-        String token = jwtTokenProvider.generateToken(savedUser);
-        return AuthenticationResponse.builder().token(token).build();
+    private UserAlreadyExistsException duplicateUser(DataIntegrityViolationException e, User user) {
+        String constraint = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+                break;
+            }
+        }
+        // Some drivers report the constraint inside a longer description, so match on the name rather than equality
+        String name = constraint != null ? constraint.toLowerCase(Locale.ROOT) : "";
+        if (name.contains(User.USERNAME_CONSTRAINT)) {
+            return new UserAlreadyExistsException("Username is already taken");
+        }
+        if (name.contains(User.EMAIL_CONSTRAINT)) {
+            return new UserAlreadyExistsException("Email is already in use");
+        }
+        // No recognisable constraint name, so ask which value is taken
+        if (userRepository.existsByUsername(user.getUsername())) {
+            return new UserAlreadyExistsException("Username is already taken");
+        }
+        if (userRepository.existsByEmail(user.getEmail())) {
+            return new UserAlreadyExistsException("Email is already in use");
+        }
+        return new UserAlreadyExistsException("Username or email is already in use");
     }
 
+    @Timed(value = "auth.requests", extraTags = {"operation", "authenticate"})
     public AuthenticationResponse authenticate(UserDto userDto) {
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(userDto.getUsername(), userDto.getPassword())
@@ -54,7 +89,25 @@ public class AuthService {
         User user = userRepository.findByUsername(userDto.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        String token = jwtTokenProvider.generateToken(user);
-        return AuthenticationResponse.builder().token(token).build();
+        return tokensFor(user, refreshTokenService.issue(user));
+    }
+
+    // No password check here: the refresh token is the credential, so renewing an access token skips BCrypt
+    @Timed(value = "auth.requests", extraTags = {"operation", "refresh"})
+    public AuthenticationResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        return tokensFor(rotation.user(), rotation.refreshToken());
+    }
+
+    @Timed(value = "auth.requests", extraTags = {"operation", "logout"})
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
+    private AuthenticationResponse tokensFor(User user, String refreshToken) {
+        return AuthenticationResponse.builder()
+                .token(jwtTokenProvider.generateToken(user))
+                .refreshToken(refreshToken)
+                .build();
     }
 }
\ No newline at end of file
@@ -1,103 +1,232 @@
 package com.uttkarsh.blogpost.service;
 
+import com.uttkarsh.blogpost.cache.BlogPostCache;
 import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.CursorPage;
+import com.uttkarsh.blogpost.dto.PostVersion;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.exception.InvalidImageReferenceException;
 import com.uttkarsh.blogpost.exception.ResourceNotFoundException;
 import com.uttkarsh.blogpost.model.BlogPost;
 import com.uttkarsh.blogpost.model.User;
 import com.uttkarsh.blogpost.repository.BlogPostRepository;
 import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.search.PostSearchIndex;
+import com.uttkarsh.blogpost.search.SearchResult;
 import com.uttkarsh.blogpost.util.BlogPostMapper;
-import jakarta.transaction.Transactional;
+import com.uttkarsh.blogpost.util.PostCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.AccessDeniedException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed("blog.posts.service")
 public class BlogPostService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final BlogPostRepository blogPostRepository;
     private final UserRepository userRepository;
     private final BlogPostMapper blogPostMapper;
     private final ImageService imageService;
+    private final PostSearchIndex postSearchIndex;
+    private final PostCountService postCountService;
+    private final BlogPostCache blogPostCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public Page<BlogPostDto> getAllBlogPosts(Pageable pageable) {
-        return blogPostRepository.findAll(pageable).map(blogPostMapper::toDto);
+    // Listings return a Page when withTotal is set and a has-next Slice otherwise; neither runs count(*) on the
+    // unfiltered or per-author listings
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostDto> getAllBlogPosts(Pageable pageable, boolean withTotal) {
+        return toDtos(withTotal(blogPostRepository.findPostsBy(pageable), withTotal, postCountService::countAll));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostDto> getAllBlogPosts(String cursor, int size) {
+        return findKeysetPage(null, null, cursor, size);
+    }
+
+    // Not transactional so cache hits never borrow a connection; misses load the post and its images in one query
     public BlogPostDto getBlogPostById(Long id) {
-        return blogPostRepository.findById(id)
+        return blogPostCache.get(id, this::loadBlogPost);
+    }
+
+    // Reloads when the cached copy predates minVersion, e.g. after an update that went through another instance
+    public BlogPostDto getBlogPostById(Long id, Instant minVersion) {
+        BlogPostDto blogPostDto = getBlogPostById(id);
+        if (minVersion != null && blogPostDto.getUpdatedAt().isBefore(minVersion)) {
+            blogPostCache.invalidate(id);
+            blogPostDto = getBlogPostById(id);
+        }
+        return blogPostDto;
+    }
+
+    // Version of the cached post, without loading it; null on a cache miss
+    public Instant getCachedBlogPostVersion(Long id) {
+        return blogPostCache.cachedVersion(id);
+    }
+
+    // Cache fills read the primary: a lagging replica could re-cache the version the last invalidation evicted
+    private BlogPostDto loadBlogPost(Long id) {
+        BlogPostDto blogPostDto = transactionTemplate.execute(status -> blogPostRepository.findWithImagesById(id)
                 .map(blogPostMapper::toDto)
-                .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
+                .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id)));
+        blogPostDto.setExistingImages(new ArrayList<>(blogPostDto.getExistingImages()));
+        return blogPostDto;
     }
 
-    @Transactional
+    // Images are written before the transaction opens so connection hold time doesn't depend on upload size
     public BlogPostDto createBlogPost(BlogPostDto blogPostDto, Long authorId) throws IOException {
-        User author = userRepository.findById(authorId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
+        // A new post holds no blob references yet, so it can only carry images uploaded with it
+        if (blogPostDto.getExistingImages() != null && !blogPostDto.getExistingImages().isEmpty()) {
+            throw new InvalidImageReferenceException("A new blog post can only reference images uploaded with it");
+        }
+        List<String> imageUrls = uploadNewImages(blogPostDto);
 
-        BlogPost blogPost = blogPostMapper.toEntity(blogPostDto);
-        blogPost.setAuthor(author);
+        try {
+            return inTransaction(() -> {
+                User author = userRepository.findById(authorId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
 
-        if (blogPostDto.getNewImages() != null && !blogPostDto.getNewImages().isEmpty()) {
-            List<String> imageUrls = imageService.uploadImages(blogPostDto.getNewImages());
-            blogPost.setImages(imageUrls);
-        }
+                BlogPost blogPost = blogPostMapper.toEntity(blogPostDto);
+                // A client-supplied id would turn the insert into a merge over someone else's post
+                blogPost.setId(null);
+                blogPost.setAuthor(author);
+                blogPost.setImages(new ArrayList<>(imageUrls));
 
-        BlogPost savedBlogPost = blogPostRepository.save(blogPost);
-        return blogPostMapper.toDto(savedBlogPost);
+                BlogPost savedBlogPost = blogPostRepository.save(blogPost);
+                postCountService.adjust(authorId, 1);
+                eventPublisher.publishEvent(BlogPostEvent.created(savedBlogPost));
+                return blogPostMapper.toDto(savedBlogPost);
+            });
+        } catch (IOException | RuntimeException e) {
+            imageService.deleteImages(imageUrls);
+            throw e;
+        }
     }
 
 
-    @Transactional
     public BlogPostDto updateBlogPost(Long id, BlogPostDto blogPostDto, Long currentUserId) throws IOException {
-        BlogPost existingBlogPost = blogPostRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
+        List<String> newImageUrls = uploadNewImages(blogPostDto);
 
-        // Check if the current user is the author of the blog post
-        if (!existingBlogPost.getAuthor().getId().equals(currentUserId)) {
-            throw new AccessDeniedException("You are not authorized to update this blog post");
-        }
+        try {
+            return inTransaction(() -> {
+                BlogPost existingBlogPost = blogPostRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
-        // Update title and content only if they are not null in the DTO
-        if (blogPostDto.getTitle() != null) {
-            existingBlogPost.setTitle(blogPostDto.getTitle());
-        }
-        if (blogPostDto.getContent() != null) {
-            existingBlogPost.setContent(blogPostDto.getContent());
-        }
+                // Check if the current user is the author of the blog post
+                if (!existingBlogPost.getAuthor().getId().equals(currentUserId)) {
+                    throw new AccessDeniedException("You are not authorized to update this blog post");
+                }
 
-        // Handle image updates
-        List<String> updatedImages = new ArrayList<>(blogPostDto.getExistingImages() != null ? blogPostDto.getExistingImages() : existingBlogPost.getImages());
+                // Update title and content only if they are not null in the DTO
+                if (blogPostDto.getTitle() != null) {
+                    existingBlogPost.setTitle(blogPostDto.getTitle());
+                }
+                if (blogPostDto.getContent() != null) {
+                    existingBlogPost.setContent(blogPostDto.getContent());
+                }
 
-        // Delete removed images
-        for (String imageUrl : existingBlogPost.getImages()) {
-            if (!updatedImages.contains(imageUrl)) {
-                imageService.deleteImage(imageUrl);
-            }
+                // Handle image updates
+                List<String> updatedImages = new ArrayList<>(existingBlogPost.getImages());
+                if (blogPostDto.getExistingImages() != null) {
+                    Map<String, Integer> removed = countImages(existingBlogPost.getImages());
+                    for (String imageUrl : blogPostDto.getExistingImages()) {
+                        // Only references this post already holds may be kept; anything else was never acquired
+                        int remaining = removed.getOrDefault(imageUrl, 0);
+                        if (remaining == 0) {
+                            throw new InvalidImageReferenceException("Image " + imageUrl + " does not belong to blog post " + id);
+                        }
+                        removed.put(imageUrl, remaining - 1);
+                    }
+                    updatedImages = new ArrayList<>(blogPostDto.getExistingImages());
+
+                    // Delete removed images, once per reference dropped
+                    removed.forEach((imageUrl, count) -> {
+                        for (int i = 0; i < count; i++) {
+                            imageService.deleteImage(imageUrl);
+                        }
+                    });
+                }
+
+                // Add new images
+                updatedImages.addAll(newImageUrls);
+
+                existingBlogPost.setImages(updatedImages);
+
+                BlogPost updatedBlogPost = blogPostRepository.save(existingBlogPost);
+                eventPublisher.publishEvent(BlogPostEvent.updated(updatedBlogPost));
+                return blogPostMapper.toDto(updatedBlogPost);
+            });
+        } catch (IOException | RuntimeException e) {
+            imageService.deleteImages(newImageUrls);
+            throw e;
         }
+    }
+
+    private static Map<String, Integer> countImages(List<String> imageUrls) {
+        Map<String, Integer> counts = new HashMap<>();
+        imageUrls.forEach(imageUrl -> counts.merge(imageUrl, 1, Integer::sum));
+        return counts;
+    }
 
-        // Add new images
-        if (blogPostDto.getNewImages() != null && !blogPostDto.getNewImages().isEmpty()) {
-            List<String> newImageUrls = imageService.uploadImages(blogPostDto.getNewImages());
-            updatedImages.addAll(newImageUrls);
+    private List<String> uploadNewImages(BlogPostDto blogPostDto) throws IOException {
+        if (blogPostDto.getNewImages() == null || blogPostDto.getNewImages().isEmpty()) {
+            return List.of();
         }
+        return imageService.uploadImages(blogPostDto.getNewImages());
+    }
 
-        existingBlogPost.setImages(updatedImages);
+    private <T> T inTransaction(TransactionalWork<T> work) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return work.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        BlogPost updatedBlogPost = blogPostRepository.save(existingBlogPost);
-        return blogPostMapper.toDto(updatedBlogPost);
+    @FunctionalInterface
+    private interface TransactionalWork<T> {
+        T run() throws IOException;
     }
+
     @Transactional
-    public void deleteBlogPost(Long id) throws IOException {
+    public void deleteBlogPost(Long id) {
         BlogPost blogPost = blogPostRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
 
@@ -106,41 +235,300 @@ public class BlogPostService {
             imageService.deleteImage(imageUrl);
         }
 
-        blogPostRepository.deleteById(id);
+        // Removing the loaded entity fails on a concurrent delete, so the counter is never decremented twice;
+        // flushing here surfaces that as a 404 instead of an optimistic lock failure at commit
+        try {
+            blogPostRepository.delete(blogPost);
+            blogPostRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResourceNotFoundException("Blog post not found with id: " + id);
+        }
+        postCountService.adjust(blogPost.getAuthor().getId(), -1);
+        eventPublisher.publishEvent(BlogPostEvent.deleted(id));
     }
 
-    @Transactional
-    public Page<BlogPostDto> searchBlogPosts(String title, Long authorId, Pageable pageable) {
-        if (title != null && authorId != null) {
-            User author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
-            return blogPostRepository.findByTitleContainingIgnoreCaseAndAuthor(title, author, pageable)
-                    .map(blogPostMapper::toDto);
-        } else if (title != null) {
-            return blogPostRepository.findByTitleContainingIgnoreCase(title, pageable)
-                    .map(blogPostMapper::toDto);
-        } else if (authorId != null) {
-            User author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
-            return blogPostRepository.findByAuthor(author, pageable)
-                    .map(blogPostMapper::toDto);
-        } else {
-            return blogPostRepository.findAll(pageable)
-                    .map(blogPostMapper::toDto);
+    @Transactional(readOnly = true)
+    public Slice<BlogPostDto> searchBlogPosts(String title, Long authorId, Pageable pageable, boolean withTotal) {
+        return toDtos(search(posts(), title, authorId, pageable, withTotal));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostDto> filterByTitle(String title, Pageable pageable, boolean withTotal) {
+        return toDtos(withTotal(blogPostRepository.findByTitleContainingIgnoreCase(title, pageable), withTotal,
+                () -> blogPostRepository.countByTitleContainingIgnoreCase(title)));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostDto> filterByAuthor(Long authorId, Pageable pageable, boolean withTotal) {
+        User author = userRepository.findById(authorId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
+        return toDtos(withTotal(blogPostRepository.findByAuthor(author, pageable), withTotal,
+                () -> postCountService.countByAuthor(authorId)));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostDto> searchBlogPosts(String title, Long authorId, String cursor, int size) {
+        if (authorId != null && !userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
         }
+        return findKeysetPage(title, authorId, cursor, size);
     }
 
-    @Transactional
-    public Page<BlogPostDto> filterByTitle(String title, Pageable pageable) {
-        return blogPostRepository.findByTitleContainingIgnoreCase(title, pageable)
-                .map(blogPostMapper::toDto);
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostDto> filterByAuthor(Long authorId, String cursor, int size) {
+        if (!userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return findKeysetPage(null, authorId, cursor, size);
     }
 
-    @Transactional
-    public Page<BlogPostDto> filterByAuthor(Long authorId, Pageable pageable) {
+    // Summary views: same filters as the full listings, read through a projection that skips the content column
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostSummary> getAllBlogPostSummaries(Pageable pageable, boolean withTotal) {
+        return withTotal(blogPostRepository.findSummaries(pageable), withTotal, postCountService::countAll);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostSummary> searchBlogPostSummaries(String title, Long authorId, Pageable pageable, boolean withTotal) {
+        return search(summaries(), title, authorId, pageable, withTotal);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostSummary> filterSummariesByTitle(String title, Pageable pageable, boolean withTotal) {
+        return withTotal(blogPostRepository.findSummariesByTitle(title, pageable), withTotal,
+                () -> blogPostRepository.countByTitleContainingIgnoreCase(title));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<BlogPostSummary> filterSummariesByAuthor(Long authorId, Pageable pageable, boolean withTotal) {
+        if (!userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return withTotal(blogPostRepository.findSummariesByAuthorId(authorId, pageable), withTotal,
+                () -> postCountService.countByAuthor(authorId));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostSummary> getAllBlogPostSummaries(String cursor, int size) {
+        return findKeysetSummaries(null, null, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostSummary> searchBlogPostSummaries(String title, Long authorId, String cursor, int size) {
+        if (authorId != null && !userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return findKeysetSummaries(title, authorId, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BlogPostSummary> filterSummariesByAuthor(Long authorId, String cursor, int size) {
+        if (!userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return findKeysetSummaries(null, authorId, cursor, size);
+    }
+
+    // Version lookups answer conditional GETs: the same rows as the listings above, but only id and timestamps
+
+    @Transactional(readOnly = true)
+    public Instant getBlogPostVersion(Long id) {
+        return blogPostRepository.findUpdatedAtById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PostVersion> getAllBlogPostVersions(Pageable pageable, boolean withTotal) {
+        return withTotal(blogPostRepository.findVersionsBy(pageable), withTotal, postCountService::countAll);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PostVersion> getAllBlogPostVersions(String cursor, int size) {
+        return findKeysetVersions(null, null, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PostVersion> searchBlogPostVersions(String title, Long authorId, Pageable pageable, boolean withTotal) {
+        return search(versions(), title, authorId, pageable, withTotal);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PostVersion> searchBlogPostVersions(String title, Long authorId, String cursor, int size) {
+        if (authorId != null && !userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return findKeysetVersions(title, authorId, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PostVersion> filterVersionsByTitle(String title, Pageable pageable, boolean withTotal) {
+        return withTotal(blogPostRepository.findVersionsByTitleContainingIgnoreCase(title, pageable), withTotal,
+                () -> blogPostRepository.countByTitleContainingIgnoreCase(title));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PostVersion> filterVersionsByAuthor(Long authorId, Pageable pageable, boolean withTotal) {
         User author = userRepository.findById(authorId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + authorId));
-        return blogPostRepository.findByAuthor(author, pageable)
-                .map(blogPostMapper::toDto);
+        return withTotal(blogPostRepository.findVersionsByAuthor(author, pageable), withTotal,
+                () -> postCountService.countByAuthor(authorId));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PostVersion> filterVersionsByAuthor(Long authorId, String cursor, int size) {
+        if (!userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        return findKeysetVersions(null, authorId, cursor, size);
+    }
+
+    private CursorPage<BlogPostDto> findKeysetPage(String title, Long authorId, String cursor, int size) {
+        int pageSize = cursorPageSize(size);
+        PostCursor position = PostCursor.decode(cursor);
+        CursorPage<BlogPost> page = toCursorPage(blogPostRepository.findKeyset(title, authorId, position, pageSize + 1),
+                position, pageSize, BlogPost::getCreatedAt, BlogPost::getId);
+        return CursorPage.<BlogPostDto>builder()
+                .content(blogPostMapper.toDtos(page.getContent()))
+                .nextCursor(page.getNextCursor())
+                .prevCursor(page.getPrevCursor())
+                .size(page.getSize())
+                .build();
+    }
+
+    private CursorPage<PostVersion> findKeysetVersions(String title, Long authorId, String cursor, int size) {
+        int pageSize = cursorPageSize(size);
+        PostCursor position = PostCursor.decode(cursor);
+        return toCursorPage(blogPostRepository.findKeysetVersions(title, authorId, position, pageSize + 1),
+                position, pageSize, PostVersion::createdAt, PostVersion::id);
+    }
+
+    private CursorPage<BlogPostSummary> findKeysetSummaries(String title, Long authorId, String cursor, int size) {
+        int pageSize = cursorPageSize(size);
+        PostCursor position = PostCursor.decode(cursor);
+        return toCursorPage(blogPostRepository.findKeysetSummaries(title, authorId, position, pageSize + 1),
+                position, pageSize, BlogPostSummary::getCreatedAt, BlogPostSummary::getId);
+    }
+
+    private Slice<BlogPostDto> toDtos(Slice<BlogPost> slice) {
+        List<BlogPostDto> content = blogPostMapper.toDtos(slice.getContent());
+        if (slice instanceof Page<BlogPost> page) {
+            return new PageImpl<>(content, page.getPageable(), page.getTotalElements());
+        }
+        return new SliceImpl<>(content, slice.getPageable(), slice.hasNext());
+    }
+
+    // The same search over the rows of one listing shape: relevance-ranked from the index when it is ready,
+    // otherwise a title and/or author query; totals come from the same counts whatever the shape
+    private <T> Slice<T> search(Projection<T> projection, String title, Long authorId, Pageable pageable, boolean withTotal) {
+        if (authorId != null && !userRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException("User not found with id: " + authorId);
+        }
+        User author = authorId != null ? userRepository.getReferenceById(authorId) : null;
+        if (title != null && postSearchIndex.isReady()) {
+            // Only the hits of the requested page are loaded, then put back in rank order
+            SearchResult result = postSearchIndex.search(title, authorId, pageable.getOffset(), pageable.getPageSize());
+            Map<Long, T> rows = projection.byIds().apply(result.ids()).stream()
+                    .collect(Collectors.toMap(projection.id(), Function.identity()));
+            List<T> content = result.ids().stream()
+                    .map(rows::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return indexPage(content, pageable, result.total(), withTotal);
+        } else if (title != null && author != null) {
+            return withTotal(projection.byTitleAndAuthor().find(title, author, pageable), withTotal,
+                    () -> blogPostRepository.countByTitleContainingIgnoreCaseAndAuthor(title, author));
+        } else if (title != null) {
+            return withTotal(projection.byTitle().apply(title, pageable), withTotal,
+                    () -> blogPostRepository.countByTitleContainingIgnoreCase(title));
+        } else if (author != null) {
+            return withTotal(projection.byAuthor().apply(author, pageable), withTotal,
+                    () -> postCountService.countByAuthor(authorId));
+        } else {
+            return withTotal(projection.all().apply(pageable), withTotal, postCountService::countAll);
+        }
+    }
+
+    // How one listing shape loads its rows for each kind of search
+    private record Projection<T>(Function<Pageable, Slice<T>> all,
+                                 BiFunction<String, Pageable, Slice<T>> byTitle,
+                                 BiFunction<User, Pageable, Slice<T>> byAuthor,
+                                 TitleAndAuthorQuery<T> byTitleAndAuthor,
+                                 Function<List<Long>, List<T>> byIds,
+                                 Function<T, Long> id) {
+    }
+
+    @FunctionalInterface
+    private interface TitleAndAuthorQuery<T> {
+        Slice<T> find(String title, User author, Pageable pageable);
+    }
+
+    private Projection<BlogPost> posts() {
+        return new Projection<>(blogPostRepository::findPostsBy, blogPostRepository::findByTitleContainingIgnoreCase,
+                blogPostRepository::findByAuthor, blogPostRepository::findByTitleContainingIgnoreCaseAndAuthor,
+                blogPostRepository::findAllById, BlogPost::getId);
+    }
+
+    private Projection<BlogPostSummary> summaries() {
+        return new Projection<>(blogPostRepository::findSummaries, blogPostRepository::findSummariesByTitle,
+                (author, pageable) -> blogPostRepository.findSummariesByAuthorId(author.getId(), pageable),
+                (title, author, pageable) -> blogPostRepository.findSummariesByTitleAndAuthorId(title, author.getId(), pageable),
+                blogPostRepository::findSummariesByIdIn, BlogPostSummary::getId);
+    }
+
+    private Projection<PostVersion> versions() {
+        return new Projection<>(blogPostRepository::findVersionsBy, blogPostRepository::findVersionsByTitleContainingIgnoreCase,
+                blogPostRepository::findVersionsByAuthor, blogPostRepository::findVersionsByTitleContainingIgnoreCaseAndAuthor,
+                blogPostRepository::findVersionsByIdIn, PostVersion::id);
+    }
+
+    // Totals are skipped entirely for slices, and PageableExecutionUtils skips them too when the page is the last one
+    private static <T> Slice<T> withTotal(Slice<T> slice, boolean withTotal, LongSupplier total) {
+        if (!withTotal) {
+            return slice;
+        }
+        return PageableExecutionUtils.getPage(slice.getContent(), slice.getPageable(), total);
+    }
+
+    private static <T> Slice<T> indexPage(List<T> content, Pageable pageable, long total, boolean withTotal) {
+        if (withTotal) {
+            return new PageImpl<>(content, pageable, total);
+        }
+        return new SliceImpl<>(content, pageable, pageable.isPaged() && pageable.getOffset() + pageable.getPageSize() < total);
+    }
+
+    private static int cursorPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+    }
+
+    // Rows hold one extra entry to learn whether another page exists without counting
+    private static <T> CursorPage<T> toCursorPage(List<T> rows, PostCursor position, int pageSize,
+                                                  Function<T, Instant> createdAt, Function<T, Long> id) {
+        boolean backward = position != null && position.backward();
+        boolean hasMore = rows.size() > pageSize;
+        List<T> content = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!content.isEmpty()) {
+            if (backward || hasMore) {
+                T last = content.get(content.size() - 1);
+                nextCursor = PostCursor.after(createdAt.apply(last), id.apply(last)).encode();
+            }
+            if (backward ? hasMore : position != null) {
+                T first = content.get(0);
+                prevCursor = PostCursor.before(createdAt.apply(first), id.apply(first)).encode();
+            }
+        }
+
+        return CursorPage.<T>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .prevCursor(prevCursor)
+                .size(pageSize)
+                .build();
     }
-}
\ No newline at end of file
+}
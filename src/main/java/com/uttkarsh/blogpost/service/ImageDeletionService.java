@@ -0,0 +1,247 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.model.ImageBlob;
+import com.uttkarsh.blogpost.model.ImageDeletion;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageBlobRepository;
+import com.uttkarsh.blogpost.repository.ImageDeletionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Removes image files once nothing references them. Releasing an image records an outbox row in the caller's
+ * transaction; after commit a worker drains the outbox in batches and deletes each file under its blob's row
+ * lock, so a rolled back delete never loses a file. A periodic sweep reconciles the upload directory with
+ * blog_post_images and removes files that no post and no blob reference holds.
+ */
+@Slf4j
+@Service
+public class ImageDeletionService {
+
+    private static final String IMAGE_URL_PREFIX = "/images/";
+    private static final Pattern DERIVATIVE = Pattern.compile("_w\\d+\\.(png|jpg)$");
+
+    private final ImageDeletionRepository deletionRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final BlogPostRepository blogPostRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ExecutorService imageDeletionExecutor;
+    private final TransactionTemplate blobTransaction;
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.deletions.batch-size}")
+    private int batchSize;
+
+    @Value("${file.deletions.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${file.orphan-sweep.min-age-ms}")
+    private long orphanMinAgeMs;
+
+    @Value("${file.orphan-sweep.batch-size}")
+    private int sweepBatchSize;
+
+    public ImageDeletionService(ImageDeletionRepository deletionRepository, ImageBlobRepository imageBlobRepository,
+                                BlogPostRepository blogPostRepository, ImageDerivativeService imageDerivativeService,
+                                ExecutorService imageDeletionExecutor, PlatformTransactionManager transactionManager) {
+        this.deletionRepository = deletionRepository;
+        this.imageBlobRepository = imageBlobRepository;
+        this.blogPostRepository = blogPostRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        this.imageDeletionExecutor = imageDeletionExecutor;
+        this.blobTransaction = new TransactionTemplate(transactionManager);
+        this.blobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Must run in the transaction that released the reference; the worker is woken once that commits
+    public void enqueue(String fileName) {
+        ImageDeletion deletion = new ImageDeletion();
+        deletion.setFileName(fileName);
+        deletion.setCreatedAt(Instant.now());
+        deletionRepository.save(deletion);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+    }
+
+    // Wake-ups coalesce into one queued drain; anything missed is picked up by the poll
+    private void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            try {
+                imageDeletionExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drainRequested.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.deletions.poll-interval-ms}")
+    public void drain() {
+        if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            do {
+                drainRequested.set(false);
+                while (drainBatch()) {
+                    // keep going while batches come back full and clean
+                }
+            } while (drainRequested.get());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Returns whether another batch should follow right away; failed rows wait for the next poll
+    private boolean drainBatch() {
+        List<ImageDeletion> batch = deletionRepository.findByOrderById(PageRequest.of(0, batchSize));
+        List<Long> done = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        for (ImageDeletion deletion : batch) {
+            try {
+                purge(deletion.getFileName());
+                done.add(deletion.getId());
+            } catch (IOException | RuntimeException e) {
+                if (deletion.getAttempts() + 1 >= maxAttempts) {
+                    log.warn("Giving up on deleting image file {}, leaving it to the orphan sweep", deletion.getFileName(), e);
+                    done.add(deletion.getId());
+                } else {
+                    log.warn("Failed to delete image file {}", deletion.getFileName(), e);
+                    failed.add(deletion.getId());
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            deletionRepository.deleteAllByIdInBatch(done);
+        }
+        if (!failed.isEmpty()) {
+            deletionRepository.recordAttempt(failed);
+        }
+        return batch.size() == batchSize && failed.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${file.orphan-sweep.interval-ms}", initialDelayString = "${file.orphan-sweep.interval-ms}")
+    public void sweepOrphans() {
+        Path uploadPath = Paths.get(uploadDir);
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minusMillis(orphanMinAgeMs);
+        int removed = 0;
+        try (Stream<Path> files = Files.list(uploadPath)) {
+            List<String> candidates = new ArrayList<>(sweepBatchSize);
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (isSweepable(file, cutoff)) {
+                    candidates.add(file.getFileName().toString());
+                }
+                if (candidates.size() == sweepBatchSize || (!iterator.hasNext() && !candidates.isEmpty())) {
+                    removed += sweep(candidates);
+                    candidates.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Orphan sweep of {} failed", uploadDir, e);
+        }
+        if (removed > 0) {
+            log.info("Orphan sweep removed {} image files", removed);
+        }
+    }
+
+    // In-flight uploads, derivatives (removed with their source) and files too young to have a committed post are skipped
+    private static boolean isSweepable(Path file, Instant cutoff) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".part") || DERIVATIVE.matcher(name).find() || !Files.isRegularFile(file)) {
+            return false;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            // Usually removed since the listing; either way one unreadable file shouldn't end the sweep
+            log.debug("Skipping image file {} in orphan sweep", name, e);
+            return false;
+        }
+    }
+
+    private int sweep(List<String> fileNames) {
+        List<String> imageUrls = fileNames.stream().map(fileName -> IMAGE_URL_PREFIX + fileName).toList();
+        Set<String> referenced = new HashSet<>(blogPostRepository.findReferencedImageUrls(imageUrls));
+        int removed = 0;
+        for (String fileName : fileNames) {
+            if (referenced.contains(IMAGE_URL_PREFIX + fileName)) {
+                continue;
+            }
+            try {
+                if (purge(fileName)) {
+                    removed++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to sweep image file {}", fileName, e);
+            }
+        }
+        return removed;
+    }
+
+    // A blob still holding references is left alone; the row lock keeps a racing upload of the same content out
+    private boolean purge(String fileName) throws IOException {
+        try {
+            return Boolean.TRUE.equals(blobTransaction.execute(status -> {
+                Optional<ImageBlob> blob = imageBlobRepository.lockByFileName(fileName);
+                // Images stored before content addressing have no blob row and are never shared
+                if (blob.isPresent() && blob.get().getRefCount() > 0) {
+                    return false;
+                }
+                try {
+                    Files.deleteIfExists(Paths.get(uploadDir, fileName));
+                    imageDerivativeService.deleteDerivatives(fileName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                blob.ifPresent(imageBlobRepository::delete);
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.uttkarsh.blogpost.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.uttkarsh.blogpost.cache.BlogPostCache;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.dto.ImageVariants;
+import com.uttkarsh.blogpost.model.ImageDerivativeJob;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageDerivativeJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Produces thumbnail and medium-width copies of stored images in the background. Jobs are persisted so they
+ * survive restarts; the in-memory queue is bounded and anything it rejects is picked up by the poller.
+ * Whether a variant is ready comes from the job's status, cached and looked up once per page of posts.
+ */
+@Slf4j
+@Service
+public class ImageDerivativeService {
+
+    private static final String IMAGE_URL_PREFIX = "/images/";
+    private static final long STATUS_CACHE_SIZE = 100_000;
+    // Finished jobs rarely change; pending ones are rechecked soon, as another instance may finish them
+    private static final Duration DONE_STATUS_TTL = Duration.ofMinutes(10);
+    private static final Duration PENDING_STATUS_TTL = Duration.ofSeconds(30);
+
+    private final ImageDerivativeJobRepository jobRepository;
+    private final BlogPostRepository blogPostRepository;
+    private final BlogPostCache blogPostCache;
+    private final PostResponseCache postResponseCache;
+    private final ExecutorService imageDerivativeExecutor;
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final Cache<String, ImageDerivativeJob.Status> statuses;
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    @Value("${file.derivatives.thumbnail-width}")
+    private int thumbnailWidth;
+
+    @Value("${file.derivatives.medium-width}")
+    private int mediumWidth;
+
+    @Value("${file.derivatives.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${file.derivatives.poll-batch-size}")
+    private int pollBatchSize;
+
+    @Value("${file.derivatives.max-pixels}")
+    private long maxPixels;
+
+    public ImageDerivativeService(ImageDerivativeJobRepository jobRepository, BlogPostRepository blogPostRepository,
+                                  BlogPostCache blogPostCache, PostResponseCache postResponseCache,
+                                  ExecutorService imageDerivativeExecutor) {
+        this.jobRepository = jobRepository;
+        this.blogPostRepository = blogPostRepository;
+        this.blogPostCache = blogPostCache;
+        this.postResponseCache = postResponseCache;
+        this.imageDerivativeExecutor = imageDerivativeExecutor;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(STATUS_CACHE_SIZE)
+                .expireAfter(new Expiry<String, ImageDerivativeJob.Status>() {
+                    @Override
+                    public long expireAfterCreate(String fileName, ImageDerivativeJob.Status status, long currentTime) {
+                        return statusTtl(status);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String fileName, ImageDerivativeJob.Status status, long currentTime,
+                                                  long currentDuration) {
+                        return statusTtl(status);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String fileName, ImageDerivativeJob.Status status, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Called inside the transaction that stores a new blob, so the job exists exactly when the file does
+    public void createJob(String fileName) {
+        if (jobRepository.existsById(fileName)) {
+            return;
+        }
+        ImageDerivativeJob job = new ImageDerivativeJob();
+        job.setFileName(fileName);
+        job.setStatus(ImageDerivativeJob.Status.PENDING);
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        jobRepository.save(job);
+        statuses.put(fileName, ImageDerivativeJob.Status.PENDING);
+    }
+
+    public void schedule(String fileName) {
+        if (!scheduled.add(fileName)) {
+            return;
+        }
+        try {
+            imageDerivativeExecutor.execute(() -> process(fileName));
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(fileName);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.derivatives.poll-interval-ms}")
+    public void pollPendingJobs() {
+        List<ImageDerivativeJob> pending = jobRepository.findByStatusOrderByCreatedAt(
+                ImageDerivativeJob.Status.PENDING, PageRequest.of(0, pollBatchSize));
+        for (ImageDerivativeJob job : pending) {
+            schedule(job.getFileName());
+        }
+    }
+
+    // Loads the statuses of a whole page of images in one query, so variantsOf finds them cached
+    public void prefetch(Collection<String> imageUrls) {
+        if (!imageUrls.isEmpty()) {
+            statuses.getAll(imageUrls.stream().map(ImageDerivativeService::fileNameOf).toList(), this::loadStatuses);
+        }
+    }
+
+    public List<ImageVariants> variantsOf(List<String> imageUrls) {
+        if (imageUrls == null || imageUrls.isEmpty()) {
+            return List.of();
+        }
+        Map<String, ImageDerivativeJob.Status> ready = statuses.getAll(
+                imageUrls.stream().map(ImageDerivativeService::fileNameOf).toList(), this::loadStatuses);
+        return imageUrls.stream()
+                .map(imageUrl -> {
+                    String fileName = fileNameOf(imageUrl);
+                    if (ready.get(fileName) != ImageDerivativeJob.Status.DONE) {
+                        return new ImageVariants(imageUrl, null, null);
+                    }
+                    return new ImageVariants(imageUrl, IMAGE_URL_PREFIX + derivativeFileName(fileName, thumbnailWidth),
+                            IMAGE_URL_PREFIX + derivativeFileName(fileName, mediumWidth));
+                })
+                .toList();
+    }
+
+    // Images without a job (stored before derivatives existed, or not committed yet) count as pending
+    private Map<String, ImageDerivativeJob.Status> loadStatuses(Set<? extends String> fileNames) {
+        Map<String, ImageDerivativeJob.Status> loaded = new HashMap<>();
+        for (String fileName : fileNames) {
+            loaded.put(fileName, ImageDerivativeJob.Status.PENDING);
+        }
+        for (ImageDerivativeJob job : jobRepository.findAllById(List.copyOf(fileNames))) {
+            loaded.put(job.getFileName(), job.getStatus());
+        }
+        return loaded;
+    }
+
+    public void deleteDerivatives(String fileName) throws IOException {
+        for (int width : List.of(thumbnailWidth, mediumWidth)) {
+            Files.deleteIfExists(Paths.get(uploadDir, derivativeFileName(fileName, width)));
+        }
+        if (jobRepository.existsById(fileName)) {
+            jobRepository.deleteById(fileName);
+        }
+        statuses.invalidate(fileName);
+    }
+
+    // Derivatives are written under a temporary name and renamed before the job is marked done
+    private void process(String fileName) {
+        try {
+            Path source = Paths.get(uploadDir, fileName);
+            BufferedImage image = Files.exists(source) ? decode(source) : null;
+            if (image == null) {
+                // Deleted meanwhile, too large, or a format ImageIO can't decode
+                complete(fileName, ImageDerivativeJob.Status.FAILED);
+                return;
+            }
+            for (int width : List.of(thumbnailWidth, mediumWidth)) {
+                writeDerivative(image, fileName, width);
+            }
+            complete(fileName, ImageDerivativeJob.Status.DONE);
+            // New variants change the posts' responses, so they get a new updatedAt and with it a new ETag
+            List<Long> postIds = blogPostRepository.findIdsByImageUrl(IMAGE_URL_PREFIX + fileName);
+            if (!postIds.isEmpty()) {
+                blogPostRepository.touch(postIds, Instant.now());
+            }
+            for (Long postId : postIds) {
+                blogPostCache.invalidate(postId);
+                postResponseCache.invalidate(postId);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate derivatives for {}", fileName, e);
+            retry(fileName);
+        } finally {
+            scheduled.remove(fileName);
+        }
+    }
+
+    // The header is read first: a small file can declare dimensions whose decoded raster would exhaust the heap
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Skipping derivatives for {}: {}x{} exceeds {} pixels", source.getFileName(), width, height, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void complete(String fileName, ImageDerivativeJob.Status status) {
+        jobRepository.findById(fileName).ifPresent(job -> {
+            job.setStatus(status);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+            statuses.put(fileName, status);
+        });
+    }
+
+    private void retry(String fileName) {
+        jobRepository.findById(fileName).ifPresent(job -> {
+            job.setAttempts(job.getAttempts() + 1);
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(ImageDerivativeJob.Status.FAILED);
+            }
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+        });
+    }
+
+    private void writeDerivative(BufferedImage image, String fileName, int width) throws IOException {
+        boolean jpeg = fileName.endsWith(".jpg");
+        BufferedImage resized = resize(image, width, !jpeg);
+        Path target = Paths.get(uploadDir, derivativeFileName(fileName, width));
+        Path partPath = Paths.get(uploadDir, target.getFileName() + ".part");
+        try {
+            if (!ImageIO.write(resized, jpeg ? "jpg" : "png", partPath.toFile())) {
+                throw new IOException("No image writer for " + fileName);
+            }
+            Files.move(partPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partPath);
+        }
+    }
+
+    // Halves repeatedly before the last bilinear step, which avoids the aliasing of one large downscale
+    private static BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+        return current;
+    }
+
+    private static long statusTtl(ImageDerivativeJob.Status status) {
+        return (status == ImageDerivativeJob.Status.PENDING ? PENDING_STATUS_TTL : DONE_STATUS_TTL).toNanos();
+    }
+
+    private static String fileNameOf(String imageUrl) {
+        return imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+    }
+
+    static String derivativeFileName(String fileName, int width) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot >= 0 ? fileName.substring(0, dot) : fileName;
+        String extension = fileName.endsWith(".jpg") ? ".jpg" : ".png";
+        return base + "_w" + width + extension;
+    }
+}
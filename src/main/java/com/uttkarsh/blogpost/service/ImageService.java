@@ -1,43 +1,291 @@
 package com.uttkarsh.blogpost.service;
 
+import com.uttkarsh.blogpost.exception.ImageTooLargeException;
+import com.uttkarsh.blogpost.repository.ImageBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Content-addressed image store. Files are named by the SHA-256 of their bytes, so identical uploads share
+ * one file, and image_blobs counts the blog_post_images rows referencing each one. Publishing a new reference
+ * runs under the blob's row lock, as does ImageDeletionService purging an unreferenced file, which keeps racing
+ * uploads and deletes of the same content consistent.
+ */
+@Slf4j
 @Service
 public class ImageService {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 12;
+    private static final String IMAGE_URL_PREFIX = "/images/";
+
+    private final ExecutorService imageIoExecutor;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ImageDeletionService imageDeletionService;
+    private final TransactionTemplate blobTransaction;
+    private final TransactionTemplate releaseTransaction;
+    private final Timer uploadTimer;
+    private final DistributionSummary uploadBytes;
+    private final Counter uploadedFiles;
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
+    @Value("${file.max-file-bytes}")
+    private long maxFileBytes;
+
+    @Value("${file.max-request-bytes}")
+    private long maxRequestBytes;
+
+    public ImageService(ExecutorService imageIoExecutor, ImageBlobRepository imageBlobRepository,
+                        ImageDerivativeService imageDerivativeService, ImageDeletionService imageDeletionService,
+                        PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.imageIoExecutor = imageIoExecutor;
+        this.imageBlobRepository = imageBlobRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        this.imageDeletionService = imageDeletionService;
+        // Blob bookkeeping must commit on its own, also when called after the caller's transaction committed
+        this.blobTransaction = new TransactionTemplate(transactionManager);
+        this.blobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.releaseTransaction = new TransactionTemplate(transactionManager);
+        this.uploadTimer = Timer.builder("images.upload")
+                .description("Time to stream, hash and publish all images of one request")
+                .register(meterRegistry);
+        this.uploadBytes = DistributionSummary.builder("images.upload.bytes")
+                .description("Bytes uploaded per request")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.uploadedFiles = Counter.builder("images.upload.files")
+                .description("Images uploaded")
+                .register(meterRegistry);
+    }
+
     public List<String> uploadImages(List<MultipartFile> images) throws IOException {
-        List<String> imageUrls = new ArrayList<>();
+        Timer.Sample sample = Timer.start();
+        try {
+            List<String> imageUrls = storeImages(images);
+            uploadedFiles.increment(imageUrls.size());
+            return imageUrls;
+        } finally {
+            sample.stop(uploadTimer);
+        }
+    }
+
+    // Streams every image to disk concurrently; on any failure the references already taken are released
+    private List<String> storeImages(List<MultipartFile> images) throws IOException {
         Path uploadPath = Paths.get(uploadDir);
 
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
 
+        AtomicLong requestBytes = new AtomicLong();
+        List<Future<String>> uploads = new ArrayList<>();
         for (MultipartFile image : images) {
-            String fileName = UUID.randomUUID().toString() + "_" + image.getOriginalFilename();
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(image.getInputStream(), filePath);
-            imageUrls.add("/images/" + fileName);
+            uploads.add(imageIoExecutor.submit(() -> publish(stage(image, uploadPath, requestBytes), uploadPath)));
+        }
+
+        List<String> imageUrls = new ArrayList<>();
+        Throwable failure = null;
+        for (Future<String> upload : uploads) {
+            try {
+                imageUrls.add(upload.get());
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : new InterruptedIOException("Image upload was interrupted");
+            }
         }
 
+        if (failure != null) {
+            deleteImages(imageUrls);
+            if (failure instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Image upload failed", failure);
+        }
+        uploadBytes.record(requestBytes.get());
         return imageUrls;
     }
 
-    public void deleteImage(String imageUrl) throws IOException {
-        Path imagePath = Paths.get(uploadDir, imageUrl.substring(imageUrl.lastIndexOf("/") + 1));
-        Files.deleteIfExists(imagePath);
+    private record StagedImage(Path partPath, String fileName) {
+    }
+
+    // Writes the upload to a private .part file, hashing and sniffing the format on the way through
+    private StagedImage stage(MultipartFile image, Path uploadPath, AtomicLong requestBytes) throws IOException {
+        if (image.getSize() > maxFileBytes) {
+            throw new ImageTooLargeException("Image " + image.getOriginalFilename() + " exceeds the limit of " + maxFileBytes + " bytes");
+        }
+
+        Path partPath = uploadPath.resolve(UUID.randomUUID() + ".part");
+        MessageDigest digest = sha256();
+        byte[] header = new byte[HEADER_SIZE];
+        int headerLength = 0;
+
+        try (InputStream in = image.getInputStream();
+             OutputStream out = Files.newOutputStream(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long fileBytes = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                fileBytes += read;
+                if (fileBytes > maxFileBytes) {
+                    throw new ImageTooLargeException("Image " + image.getOriginalFilename() + " exceeds the limit of " + maxFileBytes + " bytes");
+                }
+                if (requestBytes.addAndGet(read) > maxRequestBytes) {
+                    throw new ImageTooLargeException("Images exceed the per-request limit of " + maxRequestBytes + " bytes");
+                }
+                if (headerLength < HEADER_SIZE) {
+                    int copied = Math.min(read, HEADER_SIZE - headerLength);
+                    System.arraycopy(buffer, 0, header, headerLength, copied);
+                    headerLength += copied;
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partPath);
+            throw e;
+        }
+
+        String fileName = HexFormat.of().formatHex(digest.digest()) + extension(header, headerLength);
+        return new StagedImage(partPath, fileName);
+    }
+
+    // Takes a reference on the blob; the upsert holds its row lock while the file is put in place
+    private String publish(StagedImage staged, Path uploadPath) throws IOException {
+        AtomicBoolean stored = new AtomicBoolean();
+        inBlobTransaction(() -> {
+            imageBlobRepository.acquire(staged.fileName());
+            Path filePath = uploadPath.resolve(staged.fileName());
+            if (Files.exists(filePath)) {
+                Files.deleteIfExists(staged.partPath());
+            } else {
+                Files.move(staged.partPath(), filePath, StandardCopyOption.ATOMIC_MOVE);
+                imageDerivativeService.createJob(staged.fileName());
+                stored.set(true);
+            }
+        });
+        if (stored.get()) {
+            imageDerivativeService.schedule(staged.fileName());
+        }
+        return IMAGE_URL_PREFIX + staged.fileName();
+    }
+
+    // Whether the URL points at an image already in the store
+    public boolean isStored(String imageUrl) {
+        if (imageUrl == null || !imageUrl.startsWith(IMAGE_URL_PREFIX)) {
+            return false;
+        }
+        String fileName = imageUrl.substring(IMAGE_URL_PREFIX.length());
+        return !fileName.isEmpty() && !fileName.contains("/") && !fileName.contains("\\") && !fileName.endsWith(".part")
+                && Files.isRegularFile(Paths.get(uploadDir, fileName));
+    }
+
+    // Takes references on images that are already stored, in the caller's transaction, one statement per image
+    public void acquireImages(Map<String, Long> referenceCounts) {
+        referenceCounts.forEach((imageUrl, count) ->
+                imageBlobRepository.acquire(imageUrl.substring(imageUrl.lastIndexOf("/") + 1), count));
+    }
+
+    // Drops one reference and queues the file for deletion in the caller's transaction, or in its own when there is none
+    public void deleteImage(String imageUrl) {
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+        releaseTransaction.executeWithoutResult(status -> {
+            imageBlobRepository.release(fileName);
+            imageDeletionService.enqueue(fileName);
+        });
+    }
+
+    // Best-effort release of images whose post was never saved
+    public void deleteImages(List<String> imageUrls) {
+        for (String imageUrl : imageUrls) {
+            try {
+                deleteImage(imageUrl);
+            } catch (RuntimeException e) {
+                log.warn("Failed to release image {}", imageUrl, e);
+            }
+        }
+    }
+
+    private void inBlobTransaction(BlobWork work) throws IOException {
+        try {
+            blobTransaction.executeWithoutResult(status -> {
+                try {
+                    work.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlobWork {
+        void run() throws IOException;
+    }
+
+    private static String extension(byte[] header, int length) {
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return ".png";
+        }
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return ".jpg";
+        }
+        if (length >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return ".gif";
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return ".webp";
+        }
+        return "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals for paginated listings without a count(*) per request. Per-author totals are a counter on the users
+ * row, adjusted in the transactions that create and delete posts. The global total is the planner's row
+ * estimate on PostgreSQL, refreshed every few seconds; small tables, and databases without the estimate,
+ * are counted exactly.
+ */
+@Service
+public class PostCountService {
+
+    private static final String ESTIMATE_SQL = "select reltuples::bigint from pg_class where oid = to_regclass('blog_posts')";
+
+    private record Estimate(long total, long expiresAt) {
+    }
+
+    private final BlogPostRepository blogPostRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long exactBelow;
+    private final long ttlNanos;
+
+    private volatile Boolean postgres;
+    private volatile Estimate estimate;
+
+    public PostCountService(BlogPostRepository blogPostRepository, UserRepository userRepository, JdbcTemplate jdbcTemplate,
+                            @Value("${pagination.total-estimate.exact-below}") long exactBelow,
+                            @Value("${pagination.total-estimate.ttl-seconds}") long ttlSeconds) {
+        this.blogPostRepository = blogPostRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.exactBelow = exactBelow;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public long countAll() {
+        if (!isPostgres()) {
+            return blogPostRepository.count();
+        }
+        Estimate current = estimate;
+        long now = System.nanoTime();
+        if (current == null || now - current.expiresAt() > 0) {
+            current = new Estimate(estimateAll(), now + ttlNanos);
+            estimate = current;
+        }
+        return current.total();
+    }
+
+    public long countByAuthor(Long authorId) {
+        return userRepository.findPostCountById(authorId).orElse(0L);
+    }
+
+    // Must run inside the transaction that inserts or deletes the posts
+    public void adjust(Long authorId, long delta) {
+        userRepository.adjustPostCount(authorId, delta);
+    }
+
+    public void adjust(Map<Long, Long> deltasByAuthor) {
+        deltasByAuthor.forEach(this::adjust);
+    }
+
+    // reltuples is -1 before the first ANALYZE and imprecise for small tables, where an exact count is cheap anyway
+    private long estimateAll() {
+        Long reltuples = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+        if (reltuples == null || reltuples < exactBelow) {
+            return blogPostRepository.count();
+        }
+        return reltuples;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return Boolean.TRUE.equals(result);
+    }
+}
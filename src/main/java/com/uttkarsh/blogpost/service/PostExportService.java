@@ -0,0 +1,101 @@
+package com.uttkarsh.blogpost.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.uttkarsh.blogpost.dto.PostExportRecord;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams posts as NDJSON straight from a database cursor. Posts are written in windows: the images of a
+ * window are batch-loaded together, the window is flushed to the client and the persistence context is
+ * cleared, so memory stays flat however many posts there are.
+ */
+@Service
+public class PostExportService {
+
+    // Matches the fetch size of the export query; images then load in @BatchSize groups
+    private static final int WINDOW_SIZE = 500;
+
+    private final BlogPostRepository blogPostRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter recordWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PostExportService(BlogPostRepository blogPostRepository, EntityManager entityManager,
+                             ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.blogPostRepository = blogPostRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Flushing happens once per window rather than once per post
+        this.recordWriter = objectMapper.writerFor(PostExportRecord.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void exportPosts(Long authorId, Instant updatedFrom, Instant updatedTo, OutputStream out) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    writePosts(authorId, updatedFrom, updatedTo, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writePosts(Long authorId, Instant updatedFrom, Instant updatedTo, OutputStream out) throws IOException {
+        // Each record ends with its own newline instead of Jackson's default space between root values
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+
+        try (generator; Stream<BlogPost> posts = blogPostRepository.streamForExport(authorId, updatedFrom, updatedTo)) {
+            List<BlogPost> window = new ArrayList<>(WINDOW_SIZE);
+            Iterator<BlogPost> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                window.add(iterator.next());
+                if (window.size() == WINDOW_SIZE || !iterator.hasNext()) {
+                    for (BlogPost blogPost : window) {
+                        recordWriter.writeValue(generator, toRecord(blogPost));
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    window.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private static PostExportRecord toRecord(BlogPost blogPost) {
+        return new PostExportRecord(
+                blogPost.getId(),
+                blogPost.getTitle(),
+                blogPost.getContent(),
+                new ArrayList<>(blogPost.getImages()),
+                blogPost.getAuthor().getId(),
+                blogPost.getCreatedAt(),
+                blogPost.getUpdatedAt());
+    }
+}
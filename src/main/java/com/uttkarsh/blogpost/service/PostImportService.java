@@ -0,0 +1,205 @@
+package com.uttkarsh.blogpost.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.uttkarsh.blogpost.dto.ImportError;
+import com.uttkarsh.blogpost.dto.ImportReport;
+import com.uttkarsh.blogpost.dto.PostImportRecord;
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports posts from NDJSON, one post per line. Lines are parsed and validated as they stream in and persisted
+ * in chunks, one transaction per chunk, so inserts into blog_posts and blog_post_images go out as JDBC batches.
+ * A chunk that fails as a whole is retried line by line to pin the error on the offending records.
+ */
+@Slf4j
+@Service
+public class PostImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final UserRepository userRepository;
+    private final ImageService imageService;
+    private final PostCountService postCountService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader recordReader;
+
+    @Value("${import.chunk-size}")
+    private int chunkSize;
+
+    public PostImportService(UserRepository userRepository, ImageService imageService, PostCountService postCountService,
+                             EntityManager entityManager,
+                             ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                             Validator validator, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.imageService = imageService;
+        this.postCountService = postCountService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.recordReader = objectMapper.readerFor(PostImportRecord.class);
+    }
+
+    private record ImportLine(long number, PostImportRecord record, Long authorId) {
+    }
+
+    public ImportReport importPosts(InputStream ndjson, Long importerId) throws IOException {
+        ImportReport report = new ImportReport();
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            PostImportRecord record;
+            try {
+                record = recordReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                fail(report, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+
+            String problem = validate(record);
+            if (problem != null) {
+                fail(report, lineNumber, problem);
+                continue;
+            }
+
+            chunk.add(new ImportLine(lineNumber, record, record.getAuthorId() != null ? record.getAuthorId() : importerId));
+            if (chunk.size() >= chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        return report;
+    }
+
+    private String validate(PostImportRecord record) {
+        if (record == null) {
+            return "Record is empty";
+        }
+        Set<ConstraintViolation<PostImportRecord>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (record.getImages() == null) {
+            record.setImages(new ArrayList<>());
+        }
+        for (String imageUrl : record.getImages()) {
+            if (!imageService.isStored(imageUrl)) {
+                return "Image not found: " + imageUrl;
+            }
+        }
+        return null;
+    }
+
+    private void importChunk(List<ImportLine> chunk, ImportReport report) {
+        Set<Long> authorIds = chunk.stream().map(ImportLine::authorId).collect(Collectors.toSet());
+        Set<Long> existingAuthorIds = new HashSet<>();
+        userRepository.findAllById(authorIds).forEach(user -> existingAuthorIds.add(user.getId()));
+
+        List<ImportLine> lines = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            if (existingAuthorIds.contains(line.authorId())) {
+                lines.add(line);
+            } else {
+                fail(report, line.number(), "User not found with id: " + line.authorId());
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try {
+            persist(lines);
+            report.setImported(report.getImported() + lines.size());
+        } catch (RuntimeException e) {
+            if (lines.size() == 1) {
+                fail(report, lines.get(0).number(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                return;
+            }
+            log.debug("Import chunk of {} posts failed, retrying line by line", lines.size(), e);
+            for (ImportLine line : lines) {
+                importChunk(List.of(line), report);
+            }
+        }
+    }
+
+    // Image references are taken before the posts are persisted, so the native upserts don't flush mid-batch
+    private void persist(List<ImportLine> lines) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Long> imageReferences = lines.stream()
+                    .flatMap(line -> line.record().getImages().stream())
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            imageService.acquireImages(imageReferences);
+
+            List<BlogPost> blogPosts = new ArrayList<>(lines.size());
+            for (ImportLine line : lines) {
+                BlogPost blogPost = new BlogPost();
+                blogPost.setTitle(line.record().getTitle());
+                blogPost.setContent(line.record().getContent());
+                blogPost.setImages(new ArrayList<>(line.record().getImages()));
+                blogPost.setAuthor(entityManager.getReference(User.class, line.authorId()));
+                entityManager.persist(blogPost);
+                blogPosts.add(blogPost);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            // One event per chunk: listeners apply it in one go instead of waking per post
+            eventPublisher.publishEvent(BlogPostBatchEvent.created(blogPosts));
+
+            postCountService.adjust(lines.stream()
+                    .collect(Collectors.groupingBy(ImportLine::authorId, Collectors.counting())));
+        });
+    }
+
+    private static void fail(ImportReport report, long lineNumber, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportError(lineNumber, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+}
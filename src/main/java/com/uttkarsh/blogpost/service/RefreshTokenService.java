@@ -0,0 +1,109 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.exception.InvalidRefreshTokenException;
+import com.uttkarsh.blogpost.model.RefreshToken;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. Each refresh revokes the presented token and issues its successor in the
+ * same family; presenting a token that was already used means it leaked, so the whole family is revoked and
+ * both the thief and the owner have to log in again. Only SHA-256 hashes are stored, and a refresh never
+ * touches BCrypt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpirationInMs;
+
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    // Reuse must commit its family revocation even though the caller gets an error
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokenRepository.lockByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        Instant now = Instant.now();
+        if (current.getRevokedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamily(), now);
+            log.warn("Refresh token reuse for user {}, revoked its token family", current.getUser().getUsername());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        current.setRevokedAt(now);
+        return new Rotation(current.getUser(), issue(current.getUser(), current.getFamily()));
+    }
+
+    // Unknown or already revoked tokens are ignored so logout stays idempotent
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.lockByTokenHash(hash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.revokeFamily(refreshToken.getFamily(), Instant.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval-ms}", initialDelayString = "${jwt.refresh-cleanup-interval-ms}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(User user, String family) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setFamily(family);
+        refreshToken.setUser(user);
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiresAt(now.plusMillis(refreshExpirationInMs));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    // The token carries 256 random bits, so an unsalted fast hash is enough to keep a database leak harmless
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
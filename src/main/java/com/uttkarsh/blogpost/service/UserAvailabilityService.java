@@ -0,0 +1,130 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.dto.UserHandles;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Answers username and email availability for the signup form. Bloom filters over every taken username and
+ * email, warmed from the database on startup and fed by registrations, prove most candidates free without a
+ * query; only a possible hit, or a check before warm-up has finished, goes to the database. Each instance's
+ * filters see its own registrations at once and those made on other instances at the next sync, so for up to
+ * one sync interval a name just taken elsewhere can still be reported free. The answer is therefore
+ * advisory: registration itself relies on the unique constraints.
+ */
+@Slf4j
+@Service
+public class UserAvailabilityService {
+
+    private final UserRepository userRepository;
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+    private final Counter answeredByFilter;
+    private final Counter answeredByDatabase;
+    private volatile boolean ready;
+
+    @Value("${auth.availability.warm-batch-size}")
+    private int warmBatchSize;
+
+    @Value("${auth.availability.sync-lookback-ms}")
+    private long syncLookbackMs;
+
+    // Start of the last completed warm-up or sync; the next sync reads registrations from a lookback before it
+    private volatile Instant syncedAt;
+
+    public UserAvailabilityService(UserRepository userRepository, MeterRegistry meterRegistry,
+                                   @Value("${auth.availability.expected-users}") long expectedUsers,
+                                   @Value("${auth.availability.false-positive-rate}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.answeredByFilter = Counter.builder("auth.availability.checks")
+                .description("Availability checks by where the answer came from")
+                .tag("source", "filter")
+                .register(meterRegistry);
+        this.answeredByDatabase = Counter.builder("auth.availability.checks")
+                .description("Availability checks by where the answer came from")
+                .tag("source", "database")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        Thread.ofVirtual().name("user-availability-warm").start(this::warm);
+    }
+
+    // Registrations during warm-up add themselves too; the filters only ever gain entries, so order doesn't matter
+    public void warm() {
+        Instant started = Instant.now();
+        try {
+            long afterId = 0;
+            long loaded = 0;
+            List<UserHandles> batch;
+            do {
+                batch = userRepository.findHandles(afterId, PageRequest.of(0, warmBatchSize));
+                batch.forEach(handles -> record(handles.username(), handles.email()));
+                loaded += batch.size();
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == warmBatchSize);
+            syncedAt = started;
+            ready = true;
+            log.info("User availability filters warmed with {} users", loaded);
+        } catch (RuntimeException e) {
+            log.error("Failed to warm user availability filters, checks will query the database", e);
+        }
+    }
+
+    // Registrations on other instances never reach this one's filters directly, so they are read back from the table
+    @Scheduled(fixedDelayString = "${auth.availability.sync-interval-ms}")
+    public void syncRegistrations() {
+        if (!ready) {
+            return;
+        }
+        Instant started = Instant.now();
+        try {
+            userRepository.findHandlesCreatedSince(syncedAt.minusMillis(syncLookbackMs))
+                    .forEach(handles -> record(handles.username(), handles.email()));
+            syncedAt = started;
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync user availability filters, retrying at the next interval", e);
+        }
+    }
+
+    // Called before the insert commits; a rolled back registration only costs a false positive
+    public void record(String username, String email) {
+        usernames.put(username);
+        emails.put(email);
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return isAvailable(usernames, username, candidate -> !userRepository.existsByUsername(candidate));
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return isAvailable(emails, email, candidate -> !userRepository.existsByEmail(candidate));
+    }
+
+    private boolean isAvailable(BloomFilter filter, String candidate, Predicate<String> freeInDatabase) {
+        if (ready && !filter.mightContain(candidate)) {
+            answeredByFilter.increment();
+            return true;
+        }
+        answeredByDatabase.increment();
+        return freeInDatabase.test(candidate);
+    }
+}
@@ -5,12 +5,17 @@ import com.uttkarsh.blogpost.model.BlogPost;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface BlogPostMapper {
 
     @Mapping(target = "authorId", source = "author.id")
+    @Mapping(target = "imageVariants", ignore = true)
     BlogPostDto toDto(BlogPost blogPost);
 
+    List<BlogPostDto> toDtos(List<BlogPost> blogPosts);
+
     @Mapping(target = "author", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
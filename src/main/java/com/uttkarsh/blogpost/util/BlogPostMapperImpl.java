@@ -2,10 +2,18 @@ package com.uttkarsh.blogpost.util;
 
 import com.uttkarsh.blogpost.dto.BlogPostDto;
 import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.service.ImageDerivativeService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
+@RequiredArgsConstructor
 public class BlogPostMapperImpl implements BlogPostMapper {
+
+    private final ImageDerivativeService imageDerivativeService;
+
     @Override
     public BlogPostDto toDto(BlogPost blogPost) {
         if (blogPost == null) {
@@ -17,10 +25,21 @@ public class BlogPostMapperImpl implements BlogPostMapper {
         blogPostDto.setTitle(blogPost.getTitle());
         blogPostDto.setContent(blogPost.getContent());
         blogPostDto.setExistingImages(blogPost.getImages());
+        blogPostDto.setImageVariants(imageDerivativeService.variantsOf(blogPost.getImages()));
         blogPostDto.setAuthorId(blogPost.getAuthor() != null ? blogPost.getAuthor().getId() : null);
+        blogPostDto.setUpdatedAt(blogPost.getUpdatedAt());
         return blogPostDto;
     }
 
+    // Derivative statuses for the images of all posts are looked up together rather than post by post
+    @Override
+    public List<BlogPostDto> toDtos(List<BlogPost> blogPosts) {
+        imageDerivativeService.prefetch(blogPosts.stream()
+                .flatMap(blogPost -> blogPost.getImages().stream())
+                .toList());
+        return blogPosts.stream().map(this::toDto).toList();
+    }
+
     @Override
     public BlogPost toEntity(BlogPostDto blogPostDto) {
         if (blogPostDto == null) {
@@ -0,0 +1,72 @@
+package com.uttkarsh.blogpost.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain} never answers false for a value that was put, and
+ * answers true for an absent one with roughly the configured probability while the filter holds no more than
+ * its expected number of entries. Values cannot be removed.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Bloom filter needs positive expected entries and a false positive rate in (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.weakCompareAndSetVolatile(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with a mixer so nearby strings spread across the whole range
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
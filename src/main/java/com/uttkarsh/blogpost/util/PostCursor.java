@@ -0,0 +1,48 @@
+package com.uttkarsh.blogpost.util;
+
+import com.uttkarsh.blogpost.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position over (createdAt, id). A forward cursor points past the last post of a page
+ * (older posts), a backward cursor points before the first one (newer posts).
+ */
+public record PostCursor(Instant createdAt, Long id, boolean backward) {
+
+    private static final String FORWARD = "n";
+    private static final String BACKWARD = "p";
+
+    public static PostCursor after(Instant createdAt, Long id) {
+        return new PostCursor(createdAt, id, false);
+    }
+
+    public static PostCursor before(Instant createdAt, Long id) {
+        return new PostCursor(createdAt, id, true);
+    }
+
+    public String encode() {
+        String raw = (backward ? BACKWARD : FORWARD) + ":" + createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PostCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 4 || !(FORWARD.equals(parts[0]) || BACKWARD.equals(parts[0]))) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            return new PostCursor(createdAt, Long.parseLong(parts[3]), BACKWARD.equals(parts[0]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
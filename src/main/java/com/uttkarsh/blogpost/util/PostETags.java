@@ -0,0 +1,48 @@
+package com.uttkarsh.blogpost.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Weak entity tags for post responses. A post's tag is its id and updatedAt; a listing's tag digests the
+ * (id, updatedAt) pairs of its rows plus whatever else the response carries, such as the total or cursors.
+ * The same tag comes out whether it is computed from the full DTOs or from a version-only query.
+ */
+public final class PostETags {
+
+    private PostETags() {
+    }
+
+    public static String of(Long id, Instant updatedAt) {
+        return "W/\"" + id + "-" + Long.toHexString(updatedAt.getEpochSecond()) + "." + Integer.toHexString(updatedAt.getNano()) + "\"";
+    }
+
+    public static <T> String ofListing(List<T> rows, Function<T, Long> id, Function<T, Instant> updatedAt, Object... extras) {
+        MessageDigest digest = sha256();
+        StringBuilder part = new StringBuilder();
+        for (T row : rows) {
+            part.setLength(0);
+            Instant version = updatedAt.apply(row);
+            part.append(id.apply(row)).append('-')
+                    .append(version.getEpochSecond()).append('.').append(version.getNano()).append(';');
+            digest.update(part.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object extra : extras) {
+            digest.update(("|" + extra).getBytes(StandardCharsets.UTF_8));
+        }
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.uttkarsh.blogpost.BlogPostApplication;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.ImageBlob;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageBlobRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * End-to-end load harness. Boots the application against an embedded PostgreSQL seeded with users, posts and
+ * images, then offers a mixed workload over every post and auth endpoint at a fixed arrival rate (open model).
+ * Latency is measured from each request's scheduled start, so stalls are charged to every request they delay
+ * rather than hidden by a slowed-down generator.
+ * <p>
+ * Run with {@code mvn test -Dtest=LoadHarness -Dloadtest=true [-Dload.rate=500 -Dload.duration-seconds=60 ...]};
+ * the per-endpoint report is written to {@code target/load-report.json}.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LoadHarness {
+
+    private static final int USERS = Integer.getInteger("load.users", 100);
+    private static final int POSTS = Integer.getInteger("load.posts", 10_000);
+    private static final int IMAGES = Integer.getInteger("load.images", 200);
+    private static final int IMAGES_PER_POST = Integer.getInteger("load.images-per-post", 2);
+    private static final int RATE = Integer.getInteger("load.rate", 500);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 60);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.max-in-flight", 10_000);
+    private static final String PASSWORD = "password";
+    private static final String BOUNDARY = "load-harness-boundary";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final AtomicLong registrations = new AtomicLong();
+    private final ConcurrentLinkedQueue<CreatedPost> createdPosts = new ConcurrentLinkedQueue<>();
+
+    private String baseUrl;
+    private List<String> usernames;
+    private List<String> tokens;
+    private List<Long> postIds;
+    private Map<Long, Integer> postAuthors;
+    private byte[] uploadImage;
+
+    private record CreatedPost(long id, String token) {
+    }
+
+    private record Operation(String name, int weight, Function<Random, HttpRequest> request) {
+    }
+
+    @Test
+    void runLoad() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BlogPostApplication.class).run(
+                     "--server.port=0",
+                     "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                     "--spring.datasource.username=postgres",
+                     "--spring.datasource.password=",
+                     "--spring.jpa.hibernate.ddl-auto=create-drop",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.threads.virtual.enabled=" + Boolean.getBoolean("load.virtual-threads"),
+                     "--file.upload-dir=target/load-uploads",
+                     "--logging.level.root=WARN")) {
+            baseUrl = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port");
+            seed(context);
+
+            List<Operation> operations = operations();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(executor)
+                        .build();
+
+                offerLoad(httpClient, executor, operations, WARMUP_SECONDS, null, null);
+
+                Map<String, Histogram> histograms = new LinkedHashMap<>();
+                Map<String, AtomicLong> errors = new HashMap<>();
+                for (Operation operation : operations) {
+                    histograms.put(operation.name(), new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+                    errors.put(operation.name(), new AtomicLong());
+                }
+                offerLoad(httpClient, executor, operations, DURATION_SECONDS, histograms, errors);
+                writeReport(histograms, errors);
+            }
+        }
+    }
+
+    // Starts request i at start + i / rate no matter how long earlier requests take
+    private void offerLoad(HttpClient httpClient, ExecutorService executor, List<Operation> operations, int seconds,
+                           Map<String, Histogram> histograms, Map<String, AtomicLong> errors) throws InterruptedException {
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long requests = (long) RATE * seconds;
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < requests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = pick(operations, totalWeight, random);
+            HttpRequest request = operation.request().apply(random);
+            if (request == null) {
+                continue;
+            }
+
+            inFlight.acquire();
+            executor.execute(() -> {
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    onResponse(operation, request, response);
+                    if (errors != null && response.statusCode() >= 400) {
+                        errors.get(operation.name()).incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    if (errors != null) {
+                        errors.get(operation.name()).incrementAndGet();
+                    }
+                } finally {
+                    if (histograms != null) {
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                        Histogram histogram = histograms.get(operation.name());
+                        histogram.recordValue(Math.min(latencyMicros, histogram.getHighestTrackableValue()));
+                    }
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(MAX_IN_FLIGHT);
+        inFlight.release(MAX_IN_FLIGHT);
+    }
+
+    private static Operation pick(List<Operation> operations, int totalWeight, Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private void onResponse(Operation operation, HttpRequest request, HttpResponse<String> response) throws IOException {
+        if (operation.name().equals("createPost") && response.statusCode() == 201) {
+            JsonNode body = objectMapper.readTree(response.body());
+            String token = request.headers().firstValue("Authorization").orElseThrow().substring(7);
+            createdPosts.add(new CreatedPost(body.get("id").asLong(), token));
+        }
+    }
+
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("getAllPosts", 20, random -> get(random, "/api/posts?page=" + random.nextInt(50) + "&size=20&sort=createdAt,desc")),
+                new Operation("getAllPostsByCursor", 10, random -> get(random, "/api/posts?cursor=&size=20")),
+                new Operation("getPostById", 30, random -> get(random, "/api/posts/" + randomPostId(random))),
+                new Operation("searchPosts", 8, random -> get(random, "/api/posts/search?title=" + randomWord(random) + "&size=20")),
+                new Operation("searchPostsByCursor", 3, random -> get(random, "/api/posts/search?title=" + randomWord(random) + "&cursor=&size=20")),
+                new Operation("filterByTitle", 4, random -> get(random, "/api/posts/filter/title?title=" + randomWord(random) + "&size=20")),
+                new Operation("filterByAuthor", 5, random -> get(random, "/api/posts/filter/author?authorId=" + (1 + random.nextInt(USERS)) + "&size=20")),
+                new Operation("filterByAuthorByCursor", 3, random -> get(random, "/api/posts/filter/author?authorId=" + (1 + random.nextInt(USERS)) + "&cursor=&size=20")),
+                new Operation("createPost", 5, this::createPost),
+                new Operation("updatePost", 4, this::updatePost),
+                new Operation("deletePost", 3, this::deletePost),
+                new Operation("register", 2, this::register),
+                new Operation("login", 3, this::login));
+    }
+
+    private HttpRequest get(Random random, String path) {
+        return authorized(random.nextInt(USERS), path).GET().build();
+    }
+
+    private HttpRequest createPost(Random random) {
+        return authorized(random.nextInt(USERS), "/api/posts")
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart("Load post " + random.nextInt(), true)))
+                .build();
+    }
+
+    private HttpRequest updatePost(Random random) {
+        long postId = postIds.get(random.nextInt(postIds.size()));
+        return authorized(postAuthors.get(postId), "/api/posts/" + postId)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(multipart("Updated post " + random.nextInt(), false)))
+                .build();
+    }
+
+    // Only deletes posts the harness created itself, so the seeded data set stays stable
+    private HttpRequest deletePost(Random random) {
+        CreatedPost createdPost = createdPosts.poll();
+        if (createdPost == null) {
+            return null;
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/posts/" + createdPost.id()))
+                .header("Authorization", "Bearer " + createdPost.token())
+                .DELETE()
+                .build();
+    }
+
+    private HttpRequest register(Random random) {
+        long n = registrations.incrementAndGet();
+        return json("/api/auth/register", Map.of(
+                "username", "load-user-" + n,
+                "email", "load-user-" + n + "@example.com",
+                "password", PASSWORD));
+    }
+
+    private HttpRequest login(Random random) {
+        return json("/api/auth/login", Map.of(
+                "username", usernames.get(random.nextInt(USERS)),
+                "email", "unused@example.com",
+                "password", PASSWORD));
+    }
+
+    private HttpRequest json(String path, Map<String, String> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder authorized(int user, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + tokens.get(user));
+    }
+
+    private byte[] multipart(String title, boolean withImage) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String post = objectMapper.writeValueAsString(Map.of("title", title, "content", content(title)));
+            body.writeBytes(("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"blogPost\"\r\n"
+                    + "Content-Type: application/json\r\n\r\n"
+                    + post + "\r\n").getBytes(StandardCharsets.UTF_8));
+            if (withImage) {
+                body.writeBytes(("--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"images\"; filename=\"load.png\"\r\n"
+                        + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                body.writeBytes(uploadImage);
+                body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+            }
+            body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            return body.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long randomPostId(Random random) {
+        return postIds.get(random.nextInt(postIds.size()));
+    }
+
+    private static final List<String> WORDS = List.of("spring", "java", "database", "cache", "search", "image",
+            "latency", "thread", "index", "query", "server", "cloud");
+
+    private static String randomWord(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private static String content(String seed) {
+        Random random = new Random(seed.hashCode());
+        StringBuilder content = new StringBuilder();
+        int words = 200 + random.nextInt(800);
+        for (int i = 0; i < words; i++) {
+            content.append(WORDS.get(random.nextInt(WORDS.size()))).append(i % 12 == 11 ? ". " : " ");
+        }
+        return content.toString();
+    }
+
+    private void seed(ConfigurableApplicationContext context) throws Exception {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        BlogPostRepository blogPostRepository = context.getBean(BlogPostRepository.class);
+        ImageBlobRepository imageBlobRepository = context.getBean(ImageBlobRepository.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("seed-user-" + i);
+            user.setEmail("seed-user-" + i + "@example.com");
+            user.setPassword(passwordHash);
+            user.setRoles(Set.of(Role.ROLE_USER));
+            users.add(user);
+        }
+        users = userRepository.saveAll(users);
+        usernames = users.stream().map(User::getUsername).toList();
+        tokens = users.stream().map(tokenProvider::generateToken).toList();
+
+        Path uploadDir = Paths.get(context.getEnvironment().getRequiredProperty("file.upload-dir"));
+        Files.createDirectories(uploadDir);
+        List<String> imageUrls = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            byte[] png = png(i);
+            String fileName = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png)) + ".png";
+            Files.write(uploadDir.resolve(fileName), png);
+            imageUrls.add("/images/" + fileName);
+        }
+        uploadImage = png(IMAGES);
+
+        Map<String, Long> references = new HashMap<>();
+        postAuthors = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        Random random = new Random(7);
+        for (int offset = 0; offset < POSTS; offset += 1_000) {
+            List<BlogPost> batch = new ArrayList<>();
+            for (int i = offset; i < Math.min(POSTS, offset + 1_000); i++) {
+                BlogPost blogPost = new BlogPost();
+                blogPost.setTitle("Seed post " + i + " about " + randomWord(random) + " and " + randomWord(random));
+                blogPost.setContent(content("seed-" + i));
+                blogPost.setAuthor(users.get(i % USERS));
+                List<String> images = new ArrayList<>();
+                for (int j = 0; j < IMAGES_PER_POST && IMAGES > 0; j++) {
+                    String imageUrl = imageUrls.get(random.nextInt(IMAGES));
+                    images.add(imageUrl);
+                    references.merge(imageUrl, 1L, Long::sum);
+                }
+                blogPost.setImages(images);
+                batch.add(blogPost);
+            }
+            List<BlogPost> saved = blogPostRepository.saveAll(batch);
+            for (int i = 0; i < saved.size(); i++) {
+                ids.add(saved.get(i).getId());
+                postAuthors.put(saved.get(i).getId(), (offset + i) % USERS);
+            }
+        }
+        postIds = List.copyOf(ids);
+
+        List<ImageBlob> blobs = new ArrayList<>();
+        references.forEach((imageUrl, count) -> {
+            ImageBlob blob = new ImageBlob();
+            blob.setFileName(imageUrl.substring(imageUrl.lastIndexOf('/') + 1));
+            blob.setRefCount(count);
+            blob.setCreatedAt(Instant.now());
+            blobs.add(blob);
+        });
+        imageBlobRepository.saveAll(blobs);
+    }
+
+    private static byte[] png(int seed) throws IOException {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(new Color((int) (seed * 0x9E3779B1L)));
+            graphics.fillRect(0, 0, 320, 240);
+            graphics.setColor(Color.WHITE);
+            graphics.drawString("image " + seed, 20, 120);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private void writeReport(Map<String, Histogram> histograms, Map<String, AtomicLong> errors) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            total += histogram.getTotalCount();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("errors", errors.get(entry.getKey()).get());
+            stats.put("throughputPerSecond", round((double) histogram.getTotalCount() / DURATION_SECONDS));
+            stats.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            stats.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            stats.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            stats.put("maxMs", millis(histogram.getMaxValue()));
+            endpoints.put(entry.getKey(), stats);
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", USERS);
+        config.put("posts", POSTS);
+        config.put("images", IMAGES);
+        config.put("imagesPerPost", IMAGES_PER_POST);
+        config.put("targetRatePerSecond", RATE);
+        config.put("durationSeconds", DURATION_SECONDS);
+        config.put("virtualThreads", Boolean.getBoolean("load.virtual-threads"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("throughputPerSecond", round((double) total / DURATION_SECONDS));
+        report.put("endpoints", endpoints);
+
+        Path output = Paths.get("target", "load-report.json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writeValue(output.toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,225 @@
+package com.uttkarsh.blogpost.benchmark;
+
+import com.uttkarsh.blogpost.BlogPostApplication;
+import com.uttkarsh.blogpost.dto.UserDto;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares platform-thread and virtual-thread serving under the same mixed load: paged listings that block on
+ * the database and cached single-post reads that don't. Every statement sleeps for a simulated network round
+ * trip so blocking is visible with the in-memory database.
+ * <p>
+ * Run with {@code mvn test -Dtest=ServingModeBenchmark -Dbenchmark=true}; results go to
+ * {@code target/serving-mode-benchmark.txt}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ServingModeBenchmark {
+
+    private static final int POSTS = 2_000;
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 50_000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("benchmark.warmup-requests", 5_000);
+    private static final long QUERY_LATENCY_MS = Long.getLong("benchmark.query-latency-ms", 5);
+
+    @Test
+    void compareServingModes() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(run(false));
+        report.add(run(true));
+
+        Path output = Paths.get("target", "serving-mode-benchmark.txt");
+        Files.createDirectories(output.getParent());
+        Files.write(output, report);
+        report.forEach(System.out::println);
+    }
+
+    private String run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BlogPostApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new SimulatedLatency(QUERY_LATENCY_MS)))
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:serving-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--file.upload-dir=target/benchmark-uploads",
+                        "--logging.level.root=WARN")) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String token = seed(context);
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .build();
+                drive(httpClient, port, token, WARMUP_REQUESTS, null, null);
+
+                long[] listLatencies = new long[REQUESTS];
+                long[] getLatencies = new long[REQUESTS];
+                AtomicInteger listCount = new AtomicInteger();
+                AtomicInteger getCount = new AtomicInteger();
+                long started = System.nanoTime();
+                drive(httpClient, port, token, REQUESTS,
+                        latency -> listLatencies[listCount.getAndIncrement()] = latency,
+                        latency -> getLatencies[getCount.getAndIncrement()] = latency);
+                double seconds = (System.nanoTime() - started) / 1e9;
+
+                return String.format("mode=%s concurrency=%d requests=%d throughput=%.0f/s list[%s] get[%s]",
+                        mode, CONCURRENCY, REQUESTS, REQUESTS / seconds,
+                        percentiles(Arrays.copyOf(listLatencies, listCount.get())),
+                        percentiles(Arrays.copyOf(getLatencies, getCount.get())));
+            }
+        }
+    }
+
+    private void drive(HttpClient httpClient, int port, String token, int requests,
+                       LatencySink listSink, LatencySink getSink) throws InterruptedException {
+        AtomicInteger remaining = new AtomicInteger(requests);
+        AtomicInteger errors = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    boolean list = random.nextBoolean();
+                    String path = list
+                            ? "/api/posts?page=" + random.nextInt(POSTS / 20) + "&size=20"
+                            : "/api/posts/" + (1 + random.nextInt(POSTS));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                            .header("Authorization", "Bearer " + token)
+                            .GET()
+                            .build();
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    long latency = System.nanoTime() - started;
+                    LatencySink sink = list ? listSink : getSink;
+                    if (sink != null) {
+                        sink.record(latency);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertThat(errors.get()).as("failed requests").isZero();
+    }
+
+    private String seed(ConfigurableApplicationContext context) {
+        UserDto userDto = new UserDto();
+        userDto.setUsername("benchmark");
+        userDto.setEmail("benchmark@example.com");
+        userDto.setPassword("benchmark");
+        String token = context.getBean(AuthService.class).register(userDto).getToken();
+
+        User author = context.getBean(UserRepository.class).findByUsername("benchmark").orElseThrow();
+        BlogPostRepository blogPostRepository = context.getBean(BlogPostRepository.class);
+        List<BlogPost> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            BlogPost blogPost = new BlogPost();
+            blogPost.setTitle("Benchmark post " + i);
+            blogPost.setContent("Lorem ipsum dolor sit amet. ".repeat(80));
+            blogPost.setAuthor(author);
+            posts.add(blogPost);
+        }
+        blogPostRepository.saveAll(posts);
+        return token;
+    }
+
+    private static String percentiles(long[] latencies) {
+        if (latencies.length == 0) {
+            return "n=0";
+        }
+        Arrays.sort(latencies);
+        return String.format("n=%d p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms", latencies.length,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    @FunctionalInterface
+    private interface LatencySink {
+        void record(long latencyNanos);
+    }
+
+    // Holds the connection for a fixed time on every statement, like a round trip to a remote database
+    private record SimulatedLatency(long latencyMs) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(method, dataSource, args);
+                        return result instanceof Connection connection ? delayed(connection) : result;
+                    });
+        }
+
+        private Connection delayed(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            Thread.sleep(latencyMs);
+                        }
+                        return invoke(method, connection, args);
+                    });
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
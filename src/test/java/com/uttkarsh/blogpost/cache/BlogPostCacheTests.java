@@ -0,0 +1,104 @@
+package com.uttkarsh.blogpost.cache;
+
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.ImageVariants;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real transaction manager, so the listener sees commits and rollbacks the way it does in the application
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BlogPostCache.class, SimpleMeterRegistry.class})
+class BlogPostCacheTests {
+
+    @Autowired
+    private BlogPostCache blogPostCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readersGetCopiesTheyCanChange() {
+        BlogPostCache cache = new BlogPostCache(1_000_000, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        BlogPostDto first = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return post(id, "Content");
+        });
+        first.setTitle("Changed");
+        first.getExistingImages().clear();
+        first.getImageVariants().get(0).setThumbnail("/images/other_w320.png");
+
+        BlogPostDto second = cache.get(1L, id -> post(id, "Reloaded"));
+        assertThat(loads).hasValue(1);
+        assertThat(second.getTitle()).isEqualTo("Title 1");
+        assertThat(second.getContent()).isEqualTo("Content");
+        assertThat(second.getExistingImages()).containsExactly("/images/a.png");
+        assertThat(second.getImageVariants().get(0).getThumbnail()).isEqualTo("/images/a_w320.png");
+        assertThat(second).isNotSameAs(cache.get(1L, id -> post(id, "Reloaded")));
+    }
+
+    @Test
+    void retainedBytesStayWithinBudget() {
+        // Each post weighs about 20 KB against a 100 KB budget
+        BlogPostCache cache = new BlogPostCache(100_000, new SimpleMeterRegistry());
+        String content = "x".repeat(10_000);
+
+        LongStream.rangeClosed(1, 50).forEach(id -> cache.get(id, key -> post(key, content)));
+
+        assertThat(cache.weightedSize()).isBetween(1L, 100_000L);
+        assertThat(LongStream.rangeClosed(1, 50).filter(id -> cache.cachedVersion(id) != null).count()).isBetween(1L, 5L);
+    }
+
+    @Test
+    void updatesEvictOnlyOnceCommitted() {
+        blogPostCache.get(1L, id -> post(id, "Content"));
+        blogPostCache.get(2L, id -> post(id, "Content"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BlogPostEvent(BlogPostEvent.Type.UPDATED, 1L, "New", "New", 1L));
+            assertThat(blogPostCache.cachedVersion(1L)).isNotNull();
+        });
+        assertThat(blogPostCache.cachedVersion(1L)).isNull();
+
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(BlogPostEvent.deleted(2L));
+            status.setRollbackOnly();
+        });
+        assertThat(blogPostCache.cachedVersion(2L)).isNotNull();
+    }
+
+    private static BlogPostDto post(Long id, String content) {
+        BlogPostDto blogPostDto = new BlogPostDto();
+        blogPostDto.setId(id);
+        blogPostDto.setTitle("Title " + id);
+        blogPostDto.setContent(content);
+        blogPostDto.setExistingImages(new ArrayList<>(List.of("/images/a.png")));
+        blogPostDto.setImageVariants(new ArrayList<>(List.of(new ImageVariants("/images/a.png", "/images/a_w320.png", "/images/a_w1024.png"))));
+        blogPostDto.setAuthorId(1L);
+        blogPostDto.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        return blogPostDto;
+    }
+}
@@ -0,0 +1,245 @@
+package com.uttkarsh.blogpost.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.dto.CursorPage;
+import com.uttkarsh.blogpost.dto.PostVersion;
+import com.uttkarsh.blogpost.exception.GlobalExceptionHandler;
+import com.uttkarsh.blogpost.exception.ResourceNotFoundException;
+import com.uttkarsh.blogpost.live.LiveFeedBroadcaster;
+import com.uttkarsh.blogpost.service.BlogPostService;
+import com.uttkarsh.blogpost.service.PostExportService;
+import com.uttkarsh.blogpost.service.PostImportService;
+import com.uttkarsh.blogpost.util.PostETags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BlogPostControllerTests {
+
+    private static final Instant CREATED = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant V1 = Instant.parse("2024-01-01T10:00:00.123456Z");
+    private static final Instant V2 = Instant.parse("2024-01-01T10:00:00.654321Z");
+
+    private final BlogPostService blogPostService = mock(BlogPostService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        PostResponseCache postResponseCache = new PostResponseCache(1 << 20, objectMapper, new SimpleMeterRegistry());
+        BlogPostController controller = new BlogPostController(blogPostService, mock(PostImportService.class),
+                mock(PostExportService.class), postResponseCache, objectMapper, mock(LiveFeedBroadcaster.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .build();
+    }
+
+    @Test
+    void postIsNotModifiedForMatchingETagOrDate() throws Exception {
+        stubPost(1L, V1);
+        String etag = PostETags.of(1L, V1);
+
+        mockMvc.perform(get("/api/posts/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, V1.toEpochMilli()));
+
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_MODIFIED_SINCE, V1.toEpochMilli()))
+                .andExpect(status().isNotModified());
+
+        // Only the unconditional request loaded the post
+        verify(blogPostService, times(1)).getBlogPostById(eq(1L), any());
+    }
+
+    @Test
+    void updatedPostGetsANewETag() throws Exception {
+        stubPost(1L, V1);
+        String before = PostETags.of(1L, V1);
+        mockMvc.perform(get("/api/posts/1")).andExpect(header().string(HttpHeaders.ETAG, before));
+
+        // Same second as V1, so only the ETag can tell the versions apart
+        stubPost(1L, V2);
+        String after = PostETags.of(1L, V2);
+        assertThat(after).isNotEqualTo(before);
+
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, after))
+                .andExpect(content().json("{\"id\":1,\"title\":\"Post 1\"}"));
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_NONE_MATCH, after))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void deletedPostIsNotFoundEvenWithAnETag() throws Exception {
+        stubPost(1L, V1);
+        mockMvc.perform(get("/api/posts/1")).andExpect(status().isOk());
+
+        doThrow(new ResourceNotFoundException("Blog post not found with id: 1")).when(blogPostService).getBlogPostVersion(1L);
+
+        mockMvc.perform(get("/api/posts/1").header(HttpHeaders.IF_NONE_MATCH, PostETags.of(1L, V1)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listingIsNotModifiedForMatchingETag() throws Exception {
+        stubListing(List.of(version(1L, V1), version(2L, V1)));
+
+        String etag = mockMvc.perform(get("/api/posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        verify(blogPostService, times(1)).getAllBlogPosts(any(Pageable.class), anyBoolean());
+    }
+
+    @Test
+    void listingIgnoresIfModifiedSince() throws Exception {
+        stubListing(List.of(version(1L, V1)));
+        stubCursorListing(List.of(version(1L, V1)));
+
+        // A row dropping out of the page moves no updatedAt, so a date alone can't prove the listing unchanged
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_MODIFIED_SINCE, V2.plusSeconds(60).toEpochMilli()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/posts").param("cursor", "").header(HttpHeaders.IF_MODIFIED_SINCE, V2.plusSeconds(60).toEpochMilli()))
+                .andExpect(status().isOk());
+
+        // Nor is the date worth a version lookup
+        verify(blogPostService, never()).getAllBlogPostVersions(any(Pageable.class), anyBoolean());
+        verify(blogPostService, never()).getAllBlogPostVersions(any(String.class), any(Integer.class));
+    }
+
+    @Test
+    void listingETagChangesAfterUpdateAndDelete() throws Exception {
+        stubListing(List.of(version(1L, V1), version(2L, V1)));
+        String original = listingETag();
+
+        stubListing(List.of(version(1L, V1), version(2L, V2)));
+        String updated = mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_NONE_MATCH, original))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        stubListing(List.of(version(1L, V1)));
+        String deleted = mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(List.of(original, updated, deleted)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void cursorListingIsNotModifiedUntilARowChanges() throws Exception {
+        stubCursorListing(List.of(version(2L, V1), version(1L, V1)));
+        String etag = mockMvc.perform(get("/api/posts").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/posts").param("cursor", "").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        stubCursorListing(List.of(version(2L, V2), version(1L, V1)));
+        mockMvc.perform(get("/api/posts").param("cursor", "").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, PostETags.ofListing(List.of(version(2L, V2), version(1L, V1)),
+                        PostVersion::id, PostVersion::updatedAt, "next", null, "full")));
+        verify(blogPostService, never()).getBlogPostVersion(any());
+    }
+
+    @Test
+    void cursorPagesKeepTheSummaryView() throws Exception {
+        PostVersion row = version(1L, V1);
+        when(blogPostService.getAllBlogPostSummaries("next", 20)).thenReturn(new CursorPage<>(List.of(
+                new BlogPostSummary(1L, "Post 1", "Content", 10L, null, CREATED, V1)), null, "prev", 20));
+        when(blogPostService.getAllBlogPostVersions("next", 20)).thenReturn(new CursorPage<>(List.of(row), null, "prev", 20));
+
+        String etag = mockMvc.perform(get("/api/posts").param("cursor", "next").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"excerpt\":\"Content\"}],\"prevCursor\":\"prev\"}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo(PostETags.ofListing(List.of(row), PostVersion::id, PostVersion::updatedAt, null, "prev", "summary"));
+
+        mockMvc.perform(get("/api/posts").param("cursor", "next").param("view", "summary").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(blogPostService, never()).getAllBlogPosts(any(String.class), any(Integer.class));
+    }
+
+    private String listingETag() throws Exception {
+        return mockMvc.perform(get("/api/posts"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void stubPost(Long id, Instant updatedAt) {
+        BlogPostDto blogPostDto = post(new PostVersion(id, CREATED, updatedAt));
+        when(blogPostService.getBlogPostVersion(id)).thenReturn(updatedAt);
+        when(blogPostService.getBlogPostById(eq(id), any())).thenReturn(blogPostDto);
+    }
+
+    private void stubListing(List<PostVersion> versions) {
+        PageRequest pageable = PageRequest.of(0, 20);
+        when(blogPostService.getAllBlogPostVersions(any(Pageable.class), anyBoolean()))
+                .thenReturn(new PageImpl<>(versions, pageable, versions.size()));
+        when(blogPostService.getAllBlogPosts(any(Pageable.class), anyBoolean()))
+                .thenReturn(new PageImpl<>(versions.stream().map(BlogPostControllerTests::post).toList(), pageable, versions.size()));
+    }
+
+    private void stubCursorListing(List<PostVersion> versions) {
+        when(blogPostService.getAllBlogPostVersions(eq(""), eq(20)))
+                .thenReturn(new CursorPage<>(versions, "next", null, 20));
+        when(blogPostService.getAllBlogPosts(eq(""), eq(20)))
+                .thenReturn(new CursorPage<>(versions.stream().map(BlogPostControllerTests::post).toList(), "next", null, 20));
+    }
+
+    private static PostVersion version(Long id, Instant updatedAt) {
+        return new PostVersion(id, CREATED, updatedAt);
+    }
+
+    private static BlogPostDto post(PostVersion version) {
+        BlogPostDto blogPostDto = new BlogPostDto();
+        blogPostDto.setId(version.id());
+        blogPostDto.setTitle("Post " + version.id());
+        blogPostDto.setContent("Content of post " + version.id());
+        blogPostDto.setAuthorId(10L);
+        blogPostDto.setUpdatedAt(version.updatedAt());
+        return blogPostDto;
+    }
+}
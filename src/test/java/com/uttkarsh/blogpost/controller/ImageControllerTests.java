@@ -0,0 +1,125 @@
+package com.uttkarsh.blogpost.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageControllerTests {
+
+    private static final String CONTENT = "0123456789";
+    private static final Instant MODIFIED = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String ETAG = "\"a-" + Long.toHexString(MODIFIED.toEpochMilli()) + "\"";
+
+    @TempDir
+    Path uploadDir;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path image = Files.writeString(uploadDir.resolve("photo.png"), CONTENT, StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(image, FileTime.from(MODIFIED));
+        ImageController imageController = new ImageController();
+        ReflectionTestUtils.setField(imageController, "uploadDir", uploadDir.toString());
+        mockMvc = MockMvcBuilders.standaloneSetup(imageController).build();
+    }
+
+    @Test
+    void servesWholeImageWithValidators() throws Exception {
+        mockMvc.perform(get("/images/photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, MODIFIED.toEpochMilli()))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        mockMvc.perform(head("/images/photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void matchingValidatorsGetNotModified() throws Exception {
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.toEpochMilli()))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=8-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("89"));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void oversizedOffsetsAreTreatedAsPastTheEnd() throws Exception {
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=99999999999999999999-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=4-99999999999999999999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-9/10"))
+                .andExpect(content().string("456789"));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=-99999999999999999999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/10"))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeImage() throws Exception {
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+        mockMvc.perform(get("/images/photo.png").header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    void unknownOrPartialUploadsAreNotFound() throws Exception {
+        Files.writeString(uploadDir.resolve("upload.part"), CONTENT);
+
+        mockMvc.perform(get("/images/missing.png")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/images/upload.part")).andExpect(status().isNotFound());
+    }
+}
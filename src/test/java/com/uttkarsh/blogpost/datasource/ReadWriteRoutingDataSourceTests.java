@@ -0,0 +1,217 @@
+package com.uttkarsh.blogpost.datasource;
+
+import com.uttkarsh.blogpost.config.DataSourceConcurrencyConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTests {
+
+    private static final long MAX_LAG_MS = 5_000;
+    private static final long NO_BACKGROUND_CHECKS_MS = 3_600_000;
+
+    private final List<ReadWriteRoutingDataSource> routings = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        routings.forEach(ReadWriteRoutingDataSource::close);
+        SecurityContextHolder.clearContext();
+    }
+
+    // A mocked pool whose lag query returns whatever lag holds when the check runs
+    private static final class StubPool {
+        private final HikariDataSource pool = mock(HikariDataSource.class);
+        private final HikariPoolMXBean poolBean = mock(HikariPoolMXBean.class);
+        private final AtomicLong lag = new AtomicLong();
+
+        private StubPool(String name) throws SQLException {
+            Connection connection = mock(Connection.class, name);
+            Statement statement = mock(Statement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(pool.getConnection()).thenReturn(connection);
+            when(pool.getConnection("reporter", "secret")).thenReturn(mock(Connection.class, name + "-reporter"));
+            when(pool.getHikariPoolMXBean()).thenReturn(poolBean);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(true);
+            when(resultSet.getLong(1)).thenAnswer(invocation -> lag.get());
+        }
+    }
+
+    @Test
+    void roundRobinSpreadsReadsAndWritesGoToPrimary() throws Exception {
+        StubPool primary = new StubPool("primary");
+        ReadWriteRoutingDataSource routing = routing(primary, ReadWriteRoutingDataSource.Selection.ROUND_ROBIN,
+                new StubPool("replica-1"), new StubPool("replica-2"));
+
+        assertThat(List.of(read(routing), read(routing), read(routing))).containsExactly("replica-1", "replica-2", "replica-1");
+        assertThat(write(routing)).isEqualTo("primary");
+    }
+
+    @Test
+    void leastConnectionsPicksTheIdlestReplica() throws Exception {
+        StubPool busy = new StubPool("replica-1");
+        StubPool idle = new StubPool("replica-2");
+        when(busy.poolBean.getActiveConnections()).thenReturn(8);
+        when(idle.poolBean.getActiveConnections()).thenReturn(1);
+        ReadWriteRoutingDataSource routing = routing(new StubPool("primary"), ReadWriteRoutingDataSource.Selection.LEAST_CONNECTIONS, busy, idle);
+
+        assertThat(List.of(read(routing), read(routing))).containsExactly("replica-2", "replica-2");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasFallBackToPrimary() throws Exception {
+        StubPool lagging = new StubPool("replica-1");
+        StubPool healthy = new StubPool("replica-2");
+        ReadWriteRoutingDataSource routing = routing(new StubPool("primary"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, lagging, healthy);
+
+        lagging.lag.set(MAX_LAG_MS + 1);
+        routing.checkReplicas();
+        assertThat(List.of(read(routing), read(routing))).containsExactly("replica-2", "replica-2");
+
+        when(healthy.pool.getConnection()).thenThrow(new SQLException("connection refused"));
+        routing.checkReplicas();
+        assertThat(read(routing)).isEqualTo("primary");
+
+        lagging.lag.set(0);
+        routing.checkReplicas();
+        assertThat(read(routing)).isEqualTo("replica-1");
+    }
+
+    @Test
+    void recentWritersReadFromPrimary() throws Exception {
+        ReadWriteRoutingDataSource routing = routing(new StubPool("primary"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN,
+                new StubPool("replica-1"));
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofMinutes(1), 100);
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_USER"));
+        handle(interceptor, "POST");
+        assertThat(handle(interceptor, "GET", () -> read(routing))).isEqualTo("primary");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bob", null, "ROLE_USER"));
+        assertThat(handle(interceptor, "GET", () -> read(routing))).isEqualTo("replica-1");
+        // The pin is per request thread and cleared on completion
+        assertThat(read(routing)).isEqualTo("replica-1");
+    }
+
+    @Test
+    void credentialedConnectionsAreRoutedToo() throws Exception {
+        ReadWriteRoutingDataSource routing = routing(new StubPool("primary"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN,
+                new StubPool("replica-1"));
+
+        Connection connection = routing.getConnection("reporter", "secret");
+        connection.setReadOnly(true);
+
+        assertThat(((ConnectionProxy) connection).getTargetConnection().toString()).isEqualTo("replica-1-reporter");
+    }
+
+    @Test
+    void eachPoolHasItsOwnPermits() throws Exception {
+        StubPool primary = new StubPool("primary");
+        StubPool replica = new StubPool("replica-1");
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary.pool, Map.of("replica-1", replica.pool),
+                ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, MAX_LAG_MS, NO_BACKGROUND_CHECKS_MS,
+                pool -> new ConcurrencyLimitedDataSource(pool, 1, 10));
+        routings.add(routing);
+
+        Connection reading = routing.getConnection();
+        reading.setReadOnly(true);
+        ((ConnectionProxy) reading).getTargetConnection();
+
+        // A held replica connection doesn't use up the primary's only permit
+        assertThat(write(routing)).isEqualTo("primary");
+    }
+
+    @Test
+    void concurrencyLimitLeavesRoutingDataSourceUnwrapped() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("datasource.concurrency-limit.permits", "10")
+                .withProperty("datasource.concurrency-limit.acquire-timeout-ms", "1000");
+        var postProcessor = DataSourceConcurrencyConfig.concurrencyLimitedDataSourcePostProcessor(environment);
+        ReadWriteRoutingDataSource routing = routing(new StubPool("primary"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+        DataSource plain = mock(DataSource.class);
+
+        assertThat(postProcessor.postProcessAfterInitialization(routing, "dataSource")).isSameAs(routing);
+        assertThat(postProcessor.postProcessAfterInitialization(plain, "other")).isInstanceOf(ConcurrencyLimitedDataSource.class);
+    }
+
+    @Test
+    void closeClosesEveryPool() throws Exception {
+        StubPool primary = new StubPool("primary");
+        StubPool replica = new StubPool("replica-1");
+        ReadWriteRoutingDataSource routing = routing(primary, ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, replica);
+
+        routing.close();
+
+        verify(primary.pool).close();
+        verify(replica.pool).close();
+    }
+
+    private ReadWriteRoutingDataSource routing(StubPool primary, ReadWriteRoutingDataSource.Selection selection,
+                                               StubPool... replicas) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.length; i++) {
+            pools.put("replica-" + (i + 1), replicas[i].pool);
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary.pool, pools, selection, MAX_LAG_MS,
+                NO_BACKGROUND_CHECKS_MS);
+        routings.add(routing);
+        return routing;
+    }
+
+    // The lazy proxy picks its target on first use, once the transaction has set the read-only flag
+    private static String read(DataSource dataSource) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setReadOnly(true);
+        return ((ConnectionProxy) connection).getTargetConnection().toString();
+    }
+
+    private static String write(DataSource dataSource) throws SQLException {
+        return ((ConnectionProxy) dataSource.getConnection()).getTargetConnection().toString();
+    }
+
+    @FunctionalInterface
+    private interface Read {
+        String run() throws SQLException;
+    }
+
+    private static void handle(ReadYourWritesInterceptor interceptor, String method) throws SQLException {
+        handle(interceptor, method, () -> null);
+    }
+
+    private static String handle(ReadYourWritesInterceptor interceptor, String method, Read read) throws SQLException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/posts");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+        try {
+            return read.run();
+        } finally {
+            interceptor.afterCompletion(request, response, new Object(), null);
+        }
+    }
+}
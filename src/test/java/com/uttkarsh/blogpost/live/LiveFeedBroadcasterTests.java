@@ -0,0 +1,195 @@
+package com.uttkarsh.blogpost.live;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.controller.BlogPostController;
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.service.BlogPostService;
+import com.uttkarsh.blogpost.service.PostExportService;
+import com.uttkarsh.blogpost.service.PostImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class LiveFeedBroadcasterTests {
+
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\S+)$", Pattern.MULTILINE);
+    private static final Pattern EVENT_NAME = Pattern.compile("^event:(\\S+)$", Pattern.MULTILINE);
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LiveFeedBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    private void start(int bufferSize, int replaySize) {
+        broadcaster = new LiveFeedBroadcaster(new ObjectMapper(), executor, meterRegistry, 60_000, bufferSize, replaySize, 10);
+        mockMvc = MockMvcBuilders.standaloneSetup(new BlogPostController(mock(BlogPostService.class), mock(PostImportService.class),
+                mock(PostExportService.class), mock(PostResponseCache.class), new ObjectMapper(), broadcaster)).build();
+    }
+
+    @Test
+    void publishingOnlyHandsOffToTheWriterPool() throws Exception {
+        start(8, 16);
+        MockHttpServletResponse subscriber = subscribe(null);
+
+        broadcaster.onBlogPostEvent(updated(1));
+
+        assertThat(subscriber.getContentAsString()).isEmpty();
+        executor.runAll();
+        assertThat(names(subscriber)).containsExactly("post");
+        assertThat(subscriber.getContentAsString()).contains("\"postId\":1");
+    }
+
+    @Test
+    void reconnectReplaysOnlyMissedEvents() throws Exception {
+        start(8, 16);
+        MockHttpServletResponse first = subscribe(null);
+        IntStream.rangeClosed(1, 3).forEach(id -> broadcaster.onBlogPostEvent(updated(id)));
+        executor.runAll();
+        List<String> ids = ids(first);
+        assertThat(ids).hasSize(3);
+
+        MockHttpServletResponse resumed = subscribe(ids.get(0));
+        executor.runAll();
+
+        assertThat(ids(resumed)).containsExactly(ids.get(1), ids.get(2));
+        assertThat(names(resumed)).containsExactly("post", "post");
+    }
+
+    @Test
+    void unknownOrExpiredLastEventIdGetsReset() throws Exception {
+        start(8, 2);
+        MockHttpServletResponse first = subscribe(null);
+        IntStream.rangeClosed(1, 4).forEach(id -> broadcaster.onBlogPostEvent(updated(id)));
+        executor.runAll();
+        String oldest = ids(first).get(0);
+
+        MockHttpServletResponse expired = subscribe(oldest);
+        MockHttpServletResponse foreign = subscribe("otherinstance-3");
+        executor.runAll();
+
+        assertThat(names(expired)).containsExactly("reset");
+        assertThat(names(foreign)).containsExactly("reset");
+    }
+
+    @Test
+    void slowSubscriberIsEvicted() throws Exception {
+        start(2, 16);
+        subscribe(null);
+        MockHttpServletResponse fast = subscribe(null);
+
+        // The dispatcher queues all three events before any writer runs, so both buffers overflow
+        IntStream.rangeClosed(1, 3).forEach(id -> broadcaster.onBlogPostEvent(updated(id)));
+        executor.runAll();
+
+        assertThat(meterRegistry.get("live.feed.evictions").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("live.feed.subscribers").gauge().value()).isZero();
+        assertThat(fast.getContentAsString()).isEmpty();
+    }
+
+    @Test
+    void importBatchIsOneReset() throws Exception {
+        start(2, 16);
+        MockHttpServletResponse subscriber = subscribe(null);
+
+        broadcaster.onBlogPostBatchEvent(new BlogPostBatchEvent(IntStream.rangeClosed(1, 500)
+                .mapToObj(id -> new BlogPostEvent(BlogPostEvent.Type.CREATED, (long) id, "Imported", "Content", 1L))
+                .toList()));
+        executor.runAll();
+
+        assertThat(names(subscriber)).containsExactly("reset");
+        assertThat(meterRegistry.get("live.feed.evictions").counter().count()).isZero();
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder live = get("/api/posts/live");
+        if (lastEventId != null) {
+            live.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(live)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static BlogPostEvent updated(long id) {
+        return new BlogPostEvent(BlogPostEvent.Type.UPDATED, id, "Title " + id, "Content", 1L);
+    }
+
+    private static List<String> ids(MockHttpServletResponse response) throws Exception {
+        return matches(EVENT_ID, response.getContentAsString());
+    }
+
+    private static List<String> names(MockHttpServletResponse response) throws Exception {
+        return matches(EVENT_NAME, response.getContentAsString());
+    }
+
+    private static List<String> matches(Pattern pattern, String content) {
+        Matcher matcher = pattern.matcher(content);
+        List<String> values = new ArrayList<>();
+        while (matcher.find()) {
+            values.add(matcher.group(1));
+        }
+        return values;
+    }
+
+    // Runs submitted tasks only when asked, on the test thread
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
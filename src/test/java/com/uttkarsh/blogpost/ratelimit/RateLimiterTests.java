@@ -0,0 +1,115 @@
+package com.uttkarsh.blogpost.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstUpToCapacityThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        assertThat(bucket.tryConsume(10, 0)).isZero();
+        assertThat(bucket.tryConsume(1, 0)).isEqualTo(SECOND / 5);
+
+        assertThat(bucket.tryConsume(5, SECOND)).isZero();
+        assertThat(bucket.tryConsume(1, SECOND)).isPositive();
+    }
+
+    @Test
+    void weightedRequestsDrainFaster() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+
+        assertThat(bucket.tryConsume(5, 0)).isZero();
+        assertThat(bucket.tryConsume(5, 0)).isZero();
+        assertThat(bucket.tryConsume(5, 0)).isEqualTo(5 * SECOND);
+    }
+
+    @Test
+    void concurrencyLimitBacksOffOnSlowRequestsAndRecovers() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 8, TimeUnit.MILLISECONDS.toNanos(100), 0.5);
+
+        assertThat(acquireAll(limiter)).isEqualTo(4);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isFalse();
+        for (int i = 0; i < 3; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+
+        // Rounds of fast requests that fill the limit raise it by about one per round
+        int rounds = 0;
+        while (limiter.getLimit() < 4 && rounds++ < 10) {
+            int acquired = acquireAll(limiter);
+            assertThat(acquired).isEqualTo(limiter.getLimit());
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+            }
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(acquireAll(limiter)).isEqualTo(4);
+    }
+
+    @Test
+    void slowEndpointsAreExemptFromTheConcurrencyLimit() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // A zero latency target makes every limited request count as slow
+        RateLimitFilter filter = new RateLimitFilter(true, 100, 20, 1, List.of(), 1000,
+                50, 10, 400, 0, 0.5, List.of("POST /api/posts/import", "GET /api/posts/export"), meterRegistry);
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/posts/import"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts/export"), new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(limit(meterRegistry)).isEqualTo(50);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(limit(meterRegistry)).isEqualTo(25);
+    }
+
+    @Test
+    void imagesSkipBucketsAndTheConcurrencyLimit() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitFilter filter = new RateLimitFilter(true, 2, 1, 1, List.of(), 1000,
+                50, 10, 400, 0, 0.5, List.of(), meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest(i % 2 == 0 ? "GET" : "HEAD", "/images/photo-" + i + ".png"), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        assertThat(limit(meterRegistry)).isEqualTo(50);
+
+        // The caller's bucket is still full
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), first, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), second, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), third, new MockFilterChain());
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(third.getStatus()).isEqualTo(429);
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    private static double limit(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("http.requests.concurrency.limit").gauge().value();
+    }
+}
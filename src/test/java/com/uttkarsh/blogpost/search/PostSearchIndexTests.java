@@ -0,0 +1,135 @@
+package com.uttkarsh.blogpost.search;
+
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostSearchIndexTests {
+
+    private final BlogPostRepository blogPostRepository = mock(BlogPostRepository.class);
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PostSearchIndex(blogPostRepository);
+        ReflectionTestUtils.setField(index, "rebuildBatchSize", 2);
+    }
+
+    @Test
+    void titleMatchesOutrankContentMatches() {
+        put(1, "Weekly notes", "Some thoughts on caching and more caching", 10);
+        put(2, "Caching with Caffeine", "Eviction policies", 10);
+        put(3, "Gardening", "Tomatoes", 10);
+
+        SearchResult result = index.search("caching", null, 0, 10);
+
+        assertThat(result.ids()).containsExactly(2L, 1L);
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void postsMatchingMoreTermsRankHigher() {
+        put(1, "Spring", "Spring boot basics", 10);
+        put(2, "Kafka", "Streams", 10);
+        put(3, "Spring and Kafka", "Wiring a listener", 10);
+
+        assertThat(index.search("spring kafka", null, 0, 10).ids()).startsWith(3L).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void prefixesMatchLongerTerms() {
+        put(1, "Observability", "Metrics and traces", 10);
+        put(2, "Observe", "Watching", 10);
+
+        assertThat(index.search("observe", null, 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("obs", null, 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void authorFilterLimitsHitsAndTotal() {
+        put(1, "Java records", "Immutable data", 10);
+        put(2, "Java streams", "Pipelines", 20);
+        put(3, "Java modules", "Encapsulation", 20);
+
+        SearchResult result = index.search("java", 20L, 0, 10);
+
+        assertThat(result.ids()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(index.search("java", 30L, 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughRankedHits() {
+        for (long id = 1; id <= 5; id++) {
+            put(id, "Post " + id + " search", "Body", 10);
+        }
+
+        SearchResult first = index.search("search", null, 0, 2);
+        SearchResult second = index.search("search", null, 2, 2);
+
+        assertThat(first.total()).isEqualTo(5);
+        assertThat(first.ids()).hasSize(2).doesNotContainAnyElementsOf(second.ids());
+        assertThat(second.ids()).hasSize(2);
+        assertThat(index.search("search", null, 4, 2).ids()).hasSize(1);
+    }
+
+    @Test
+    void updatesAndDeletesAreReindexed() {
+        put(1, "Tomcat tuning", "Threads", 10);
+        index.onBlogPostEvent(new BlogPostEvent(BlogPostEvent.Type.UPDATED, 1L, "Jetty tuning", "Threads", 10L));
+
+        assertThat(index.search("tomcat", null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("jetty", null, 0, 10).ids()).containsExactly(1L);
+
+        index.onBlogPostEvent(BlogPostEvent.deleted(1L));
+        assertThat(index.search("jetty", null, 0, 10).total()).isZero();
+        assertThat(index.search("tuning", null, 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void importBatchIsIndexedAsAWhole() {
+        index.onBlogPostBatchEvent(new BlogPostBatchEvent(List.of(
+                new BlogPostEvent(BlogPostEvent.Type.CREATED, 1L, "Imported one", "Body", 10L),
+                new BlogPostEvent(BlogPostEvent.Type.CREATED, 2L, "Imported two", "Body", 10L))));
+
+        assertThat(index.search("imported", null, 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void stopWordOnlyQueryFindsNothing() {
+        put(1, "The end", "Of the story", 10);
+
+        assertThat(index.search("the of", null, 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void rebuildLoadsEveryPostInBatches() {
+        when(blogPostRepository.findSearchDocuments(0L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new SearchDocument(1L, "Rebuilt one", "Body", 10L),
+                new SearchDocument(2L, "Rebuilt two", "Body", 10L)));
+        when(blogPostRepository.findSearchDocuments(2L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new SearchDocument(3L, "Rebuilt three", "Body", 10L)));
+
+        assertThat(index.isReady()).isFalse();
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("rebuilt", null, 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        verify(blogPostRepository).findSearchDocuments(2L, PageRequest.of(0, 2));
+    }
+
+    private void put(long id, String title, String content, long authorId) {
+        index.onBlogPostEvent(new BlogPostEvent(BlogPostEvent.Type.CREATED, id, title, content, authorId));
+    }
+}
@@ -0,0 +1,33 @@
+package com.uttkarsh.blogpost.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTests {
+
+    @Test
+    void splitsOnAnythingButLettersAndDigits() {
+        assertThat(Tokenizer.tokenize("Spring Boot 3.3: caching, (virtual-threads)!"))
+                .containsExactly("spring", "boot", "3", "3", "caching", "virtual", "threads");
+    }
+
+    @Test
+    void foldsCaseAndDiacritics() {
+        assertThat(Tokenizer.tokenize("Café CRÈME Straße")).containsExactly("cafe", "creme", "straße");
+        assertThat(Tokenizer.tokenize("cafe")).isEqualTo(Tokenizer.tokenize("CAFÉ"));
+    }
+
+    @Test
+    void dropsStopWords() {
+        assertThat(Tokenizer.tokenize("The state of the art in caching")).containsExactly("state", "art", "caching");
+        assertThat(Tokenizer.tokenize("to be or not to be")).containsExactly("not");
+    }
+
+    @Test
+    void emptyInputHasNoTokens() {
+        assertThat(Tokenizer.tokenize(null)).isEmpty();
+        assertThat(Tokenizer.tokenize("")).isEmpty();
+        assertThat(Tokenizer.tokenize(" ,;- ")).isEmpty();
+    }
+}
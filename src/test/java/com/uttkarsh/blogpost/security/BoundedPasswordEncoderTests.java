@@ -0,0 +1,86 @@
+package com.uttkarsh.blogpost.security;
+
+import com.uttkarsh.blogpost.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTests {
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hashesOnTheExecutor() {
+        PasswordEncoder encoder = new BoundedPasswordEncoder(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return Thread.currentThread() + ":" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.endsWith(":" + rawPassword);
+            }
+        }, executor, meterRegistry);
+
+        String encoded = encoder.encode("secret");
+
+        assertThat(encoded).doesNotStartWith(Thread.currentThread().toString());
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+    }
+
+    @Test
+    void rejectsOnceThreadAndQueueAreFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await();
+        executor.execute(() -> awaitQuietly(release));
+
+        PasswordEncoder encoder = new BoundedPasswordEncoder(new Plain(), executor, meterRegistry);
+
+        assertThatThrownBy(() -> encoder.matches("secret", "secret")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(meterRegistry.counter("auth.password.hashing.rejected").count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Plain implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.uttkarsh.blogpost.security;
+
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerifiedTokenCacheTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(100);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verifiedTokenIsServedFromCache() {
+        Function<String, VerifiedToken> verifier = verifier(Instant.now().plus(Duration.ofMinutes(5)));
+
+        VerifiedToken first = cache.get("token", verifier);
+        VerifiedToken second = cache.get("token", verifier);
+
+        assertThat(second).isSameAs(first);
+        assertThat(verifications).hasValue(1);
+        assertThat(cache.get("other-token", verifier)).isNotSameAs(first);
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void entryLastsOnlyUntilTheTokenExpires() {
+        Function<String, VerifiedToken> verifier = verifier(Instant.now().minusSeconds(1));
+
+        cache.get("token", verifier);
+        cache.get("token", verifier);
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void rejectedTokenIsNotCached() {
+        Function<String, VerifiedToken> rejecting = token -> {
+            verifications.incrementAndGet();
+            return null;
+        };
+
+        assertThat(cache.get("forged", rejecting)).isNull();
+        assertThat(cache.get("forged", rejecting)).isNull();
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void principalKeepsNoCredentials() {
+        VerifiedToken verifiedToken = new VerifiedToken(storedUser(), Instant.now().plus(Duration.ofMinutes(5)));
+
+        assertThat(verifiedToken.principal().getPassword()).isNull();
+        assertThat(verifiedToken.principal().getEmail()).isNull();
+        assertThat(verifiedToken.principal().getId()).isEqualTo(7L);
+        assertThat(verifiedToken.principal().getUsername()).isEqualTo("alice");
+        assertThat(verifiedToken.principal().getRoles()).containsExactly(Role.ROLE_USER);
+    }
+
+    // Tokens issued before the uid claim load the user from the database; only the slim copy may be cached
+    @Test
+    void filterCachesSlimPrincipalForTokensWithoutUserId() throws Exception {
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(storedUser());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(new JwtTokenProvider(SECRET), userDetailsService, cache, meterRegistry);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(Date.from(Instant.now().plus(Duration.ofMinutes(5))))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        for (int i = 0; i < 2; i++) {
+            SecurityContextHolder.clearContext();
+            filter.doFilter(bearer(token), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User principal = (User) authentication.getPrincipal();
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getEmail()).isNull();
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+
+        SecurityContextHolder.clearContext();
+        filter.doFilter(bearer(token + "x"), new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(meterRegistry.get("jwt.verification").tag("outcome", "invalid").timer().count()).isEqualTo(1);
+    }
+
+    private Function<String, VerifiedToken> verifier(Instant expiresAt) {
+        return token -> {
+            verifications.incrementAndGet();
+            return new VerifiedToken(storedUser(), expiresAt);
+        };
+    }
+
+    private static User storedUser() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setRoles(Set.of(Role.ROLE_USER));
+        return user;
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.dto.UserDto;
+import com.uttkarsh.blogpost.exception.UserAlreadyExistsException;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.security.JwtTokenProvider;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final UserAvailabilityService userAvailabilityService = mock(UserAvailabilityService.class);
+    private AuthService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AuthService(userRepository, passwordEncoder, mock(JwtTokenProvider.class), mock(AuthenticationManager.class),
+                mock(RefreshTokenService.class), userAvailabilityService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+    }
+
+    @Test
+    void constraintNameTellsWhichValueIsTaken() {
+        violates(User.USERNAME_CONSTRAINT);
+        assertThatThrownBy(() -> service.register(user())).isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Username is already taken");
+
+        violates("public." + User.EMAIL_CONSTRAINT.toUpperCase(Locale.ROOT));
+        assertThatThrownBy(() -> service.register(user())).isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Email is already in use");
+
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userAvailabilityService, never()).record(anyString(), anyString());
+    }
+
+    @Test
+    void unknownConstraintFallsBackToLookingUpTheClash() {
+        violates(null);
+
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+        assertThatThrownBy(() -> service.register(user())).isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Username is already taken");
+
+        when(userRepository.existsByUsername("alice")).thenReturn(false);
+        when(userRepository.existsByEmail("alice@example.com")).thenReturn(true);
+        assertThatThrownBy(() -> service.register(user())).isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Email is already in use");
+
+        // The conflicting row may be gone again by the time we look
+        when(userRepository.existsByEmail("alice@example.com")).thenReturn(false);
+        assertThatThrownBy(() -> service.register(user())).isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Username or email is already in use");
+    }
+
+    private void violates(String constraintName) {
+        doThrow(new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key"), constraintName)))
+                .when(userRepository).saveAndFlush(any(User.class));
+    }
+
+    private static UserDto user() {
+        UserDto userDto = new UserDto();
+        userDto.setUsername("alice");
+        userDto.setEmail("alice@example.com");
+        userDto.setPassword("password");
+        return userDto;
+    }
+}
@@ -0,0 +1,225 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.cache.BlogPostCache;
+import com.uttkarsh.blogpost.config.ExecutorConfig;
+import com.uttkarsh.blogpost.config.JpaAuditingConfig;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.exception.InvalidImageReferenceException;
+import com.uttkarsh.blogpost.model.ImageBlob;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageBlobRepository;
+import com.uttkarsh.blogpost.repository.ImageDeletionRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import com.uttkarsh.blogpost.search.PostSearchIndex;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Blob reference counting needs Postgres: acquiring a reference is an insert ... on conflict upsert
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BlogPostService.class, PostCountService.class, BlogPostMapperImpl.class, ImageService.class, ImageDeletionService.class,
+        ExecutorConfig.class, JpaAuditingConfig.class, SimpleMeterRegistry.class})
+class BlogPostServiceImageRefCountTests {
+
+    private static EmbeddedPostgres postgres;
+    private static Path uploadDir;
+
+    @Autowired
+    private BlogPostService blogPostService;
+
+    @Autowired
+    private ImageDeletionService imageDeletionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    @Autowired
+    private ImageDeletionRepository imageDeletionRepository;
+
+    @MockBean
+    private PostSearchIndex postSearchIndex;
+
+    @MockBean
+    private BlogPostCache blogPostCache;
+
+    @MockBean
+    private ImageDerivativeService imageDerivativeService;
+
+    private Long authorId;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        uploadDir = Files.createTempDirectory("blog-images");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("file.upload-dir", () -> uploadDir.toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        User author = new User();
+        author.setUsername("author-" + UUID.randomUUID());
+        author.setEmail(author.getUsername() + "@example.com");
+        author.setPassword("password");
+        author.setRoles(Set.of(Role.ROLE_USER));
+        authorId = userRepository.save(author).getId();
+    }
+
+    @Test
+    void sharedImageSurvivesUntilLastPostDropsIt() throws Exception {
+        byte[] content = png(1);
+        BlogPostDto first = blogPostService.createBlogPost(post(content), authorId);
+        BlogPostDto second = blogPostService.createBlogPost(post(content), authorId);
+        String imageUrl = first.getExistingImages().get(0);
+        assertThat(second.getExistingImages()).containsExactly(imageUrl);
+        assertThat(refCount(imageUrl)).isEqualTo(2);
+
+        blogPostService.updateBlogPost(first.getId(), keeping(List.of()), authorId);
+        drainDeletions();
+        assertThat(refCount(imageUrl)).isEqualTo(1);
+        assertThat(file(imageUrl)).exists();
+
+        blogPostService.deleteBlogPost(second.getId());
+        drainDeletions();
+        assertThat(imageBlobRepository.findById(fileName(imageUrl))).isEmpty();
+        assertThat(file(imageUrl)).doesNotExist();
+    }
+
+    @Test
+    void updateRejectsImagesThePostDoesNotReference() throws Exception {
+        BlogPostDto owner = blogPostService.createBlogPost(post(png(2)), authorId);
+        BlogPostDto other = blogPostService.createBlogPost(post(png(3)), authorId);
+        String foreignUrl = owner.getExistingImages().get(0);
+        String ownUrl = other.getExistingImages().get(0);
+
+        assertThatThrownBy(() -> blogPostService.updateBlogPost(other.getId(), keeping(List.of(ownUrl, foreignUrl)), authorId))
+                .isInstanceOf(InvalidImageReferenceException.class);
+        assertThatThrownBy(() -> blogPostService.updateBlogPost(other.getId(), keeping(List.of(ownUrl, ownUrl)), authorId))
+                .isInstanceOf(InvalidImageReferenceException.class);
+        assertThat(refCount(foreignUrl)).isEqualTo(1);
+        assertThat(refCount(ownUrl)).isEqualTo(1);
+
+        // Nothing borrowed the owner's reference, so dropping the owner removes the file
+        blogPostService.deleteBlogPost(owner.getId());
+        drainDeletions();
+        assertThat(file(foreignUrl)).doesNotExist();
+        assertThat(file(ownUrl)).exists();
+    }
+
+    @Test
+    void createRejectsImagesItDidNotUpload() throws Exception {
+        BlogPostDto owner = blogPostService.createBlogPost(post(png(4)), authorId);
+        String foreignUrl = owner.getExistingImages().get(0);
+
+        BlogPostDto borrowing = post(png(5));
+        borrowing.setExistingImages(new ArrayList<>(List.of(foreignUrl)));
+        assertThatThrownBy(() -> blogPostService.createBlogPost(borrowing, authorId))
+                .isInstanceOf(InvalidImageReferenceException.class);
+        assertThat(refCount(foreignUrl)).isEqualTo(1);
+
+        blogPostService.deleteBlogPost(owner.getId());
+        drainDeletions();
+        assertThat(file(foreignUrl)).doesNotExist();
+    }
+
+    @Test
+    void createIgnoresClientSuppliedId() throws Exception {
+        BlogPostDto existing = blogPostService.createBlogPost(post(png(6)), authorId);
+
+        BlogPostDto overwriting = post(png(7));
+        overwriting.setId(existing.getId());
+        overwriting.setTitle("Overwritten");
+        BlogPostDto created = blogPostService.createBlogPost(overwriting, authorId);
+
+        assertThat(created.getId()).isNotEqualTo(existing.getId());
+        assertThat(blogPostRepository.findById(existing.getId()))
+                .hasValueSatisfying(blogPost -> assertThat(blogPost.getTitle()).isEqualTo("Title"));
+        assertThat(refCount(existing.getExistingImages().get(0))).isEqualTo(1);
+    }
+
+    private BlogPostDto post(byte[] image) {
+        BlogPostDto blogPostDto = new BlogPostDto();
+        blogPostDto.setTitle("Title");
+        blogPostDto.setContent("Content");
+        blogPostDto.setNewImages(List.of(new MockMultipartFile("newImages", "image.png", "image/png", image)));
+        return blogPostDto;
+    }
+
+    private static BlogPostDto keeping(List<String> imageUrls) {
+        BlogPostDto blogPostDto = new BlogPostDto();
+        blogPostDto.setExistingImages(new ArrayList<>(imageUrls));
+        return blogPostDto;
+    }
+
+    // A PNG signature followed by a marker byte, so each test gets its own blob
+    private static byte[] png(int marker) {
+        return new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', (byte) marker, 1, 2, 3};
+    }
+
+    private long refCount(String imageUrl) {
+        return imageBlobRepository.findById(fileName(imageUrl)).map(ImageBlob::getRefCount).orElse(0L);
+    }
+
+    private static Path file(String imageUrl) {
+        return uploadDir.resolve(fileName(imageUrl));
+    }
+
+    private static String fileName(String imageUrl) {
+        return imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+    }
+
+    // The after-commit drain runs on the deletion executor and may hold the drain lock, so poll until the outbox is empty
+    private void drainDeletions() throws InterruptedException {
+        for (int i = 0; i < 100 && imageDeletionRepository.count() > 0; i++) {
+            imageDeletionService.drain();
+            Thread.sleep(20);
+        }
+        assertThat(imageDeletionRepository.count()).isZero();
+    }
+}
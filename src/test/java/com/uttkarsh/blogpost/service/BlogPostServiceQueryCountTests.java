@@ -0,0 +1,145 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.cache.BlogPostCache;
+import com.uttkarsh.blogpost.config.ExecutorConfig;
+import com.uttkarsh.blogpost.config.JpaAuditingConfig;
+import com.uttkarsh.blogpost.dto.BlogPostDto;
+import com.uttkarsh.blogpost.dto.BlogPostSummary;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.search.PostSearchIndex;
+import com.uttkarsh.blogpost.util.BlogPostMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BlogPostService.class, PostCountService.class, BlogPostMapperImpl.class, ImageService.class, ExecutorConfig.class, JpaAuditingConfig.class,
+        SimpleMeterRegistry.class})
+class BlogPostServiceQueryCountTests {
+
+    @Autowired
+    private BlogPostService blogPostService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private PostSearchIndex postSearchIndex;
+
+    @MockBean
+    private BlogPostCache blogPostCache;
+
+    @MockBean
+    private ImageDerivativeService imageDerivativeService;
+
+    @MockBean
+    private ImageDeletionService imageDeletionService;
+
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        User author = new User();
+        author.setUsername("author");
+        author.setEmail("author@example.com");
+        author.setPassword("password");
+        author.setRoles(Set.of(Role.ROLE_USER));
+        entityManager.persist(author);
+        authorId = author.getId();
+
+        for (int i = 0; i < 120; i++) {
+            BlogPost blogPost = new BlogPost();
+            blogPost.setTitle("Post " + i);
+            blogPost.setContent("Content " + i);
+            blogPost.setImages(List.of("/images/" + i + "_a.png", "/images/" + i + "_b.png"));
+            blogPost.setAuthor(author);
+            entityManager.persist(blogPost);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagedListingIssuesConstantStatementCount() {
+        long small = countStatements(() -> blogPostService.getAllBlogPosts(PageRequest.of(0, 5), true).getContent());
+        long large = countStatements(() -> blogPostService.getAllBlogPosts(PageRequest.of(0, 100), true).getContent());
+
+        assertThat(small).isEqualTo(large);
+        assertThat(large).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void pagedSearchIssuesConstantStatementCount() {
+        long small = countStatements(() -> blogPostService.searchBlogPosts("post", authorId, PageRequest.of(0, 5), true).getContent());
+        long large = countStatements(() -> blogPostService.searchBlogPosts("post", authorId, PageRequest.of(0, 100), true).getContent());
+
+        assertThat(small).isEqualTo(large);
+    }
+
+    @Test
+    void cursorListingIssuesConstantStatementCount() {
+        long small = countStatements(() -> blogPostService.getAllBlogPosts("", 5).getContent());
+        long large = countStatements(() -> blogPostService.getAllBlogPosts("", 100).getContent());
+
+        assertThat(small).isEqualTo(large);
+        assertThat(large).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void summaryListingReadsExcerptAndFirstImageInOneQuery() {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BlogPostSummary> summaries = blogPostService.getAllBlogPostSummaries(PageRequest.of(0, 100), true).getContent();
+
+        assertThat(summaries).hasSize(100);
+        summaries.forEach(summary -> {
+            assertThat(summary.getExcerpt()).startsWith("Content ");
+            assertThat(summary.getFirstImage()).endsWith("_a.png");
+            assertThat(summary.getAuthorId()).isEqualTo(authorId);
+        });
+        // The page query and its count query, nothing per row
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sliceListingSkipsCountQuery() {
+        long paged = countStatements(() -> blogPostService.getAllBlogPosts(PageRequest.of(0, 20), true).getContent());
+        long sliced = countStatements(() -> blogPostService.getAllBlogPosts(PageRequest.of(0, 20), false).getContent());
+
+        assertThat(sliced).isEqualTo(paged - 1);
+        assertThat(blogPostService.getAllBlogPosts(PageRequest.of(0, 20), false).hasNext()).isTrue();
+        assertThat(blogPostService.getAllBlogPosts(PageRequest.of(5, 20), false).hasNext()).isFalse();
+    }
+
+    private long countStatements(Supplier<List<BlogPostDto>> query) {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BlogPostDto> posts = query.get();
+        posts.forEach(post -> {
+            assertThat(post.getExistingImages()).hasSize(2);
+            assertThat(post.getAuthorId()).isEqualTo(authorId);
+        });
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,188 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.config.JpaAuditingConfig;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.ImageBlob;
+import com.uttkarsh.blogpost.model.ImageDeletion;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageBlobRepository;
+import com.uttkarsh.blogpost.repository.ImageDeletionRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Commits for real, so the outbox follows the caller's transaction and the after-commit hook fires
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ImageDeletionService.class, JpaAuditingConfig.class})
+class ImageDeletionServiceTests {
+
+    @TempDir
+    Path uploadDir;
+
+    @Autowired
+    private ImageDeletionService imageDeletionService;
+
+    @Autowired
+    private ImageDeletionRepository deletionRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ImageDerivativeService imageDerivativeService;
+
+    // Never runs the drain itself; tests call drain() so each pass is deterministic
+    @MockBean(name = "imageDeletionExecutor")
+    private ExecutorService imageDeletionExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageDeletionService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(imageDeletionService, "batchSize", 10);
+        ReflectionTestUtils.setField(imageDeletionService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(imageDeletionService, "orphanMinAgeMs", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(imageDeletionService, "sweepBatchSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deletionRepository.deleteAll();
+        imageBlobRepository.deleteAll();
+        blogPostRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void outboxRowsCommitAndRollBackWithTheCaller() throws IOException {
+        Path kept = image("kept.png", Instant.now());
+        Path released = image("released.png", Instant.now());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            imageDeletionService.enqueue("kept.png");
+            assertThat(deletionRepository.count()).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+        assertThat(deletionRepository.count()).isZero();
+        verify(imageDeletionExecutor, never()).execute(any());
+
+        transaction.executeWithoutResult(status -> imageDeletionService.enqueue("released.png"));
+        assertThat(deletionRepository.count()).isEqualTo(1);
+        verify(imageDeletionExecutor).execute(any());
+
+        imageDeletionService.drain();
+
+        assertThat(deletionRepository.count()).isZero();
+        assertThat(released).doesNotExist();
+        assertThat(kept).exists();
+        verify(imageDerivativeService).deleteDerivatives("released.png");
+    }
+
+    @Test
+    void failedDeletionsAreRetriedThenGivenUp() throws IOException {
+        image("stuck.png", Instant.now());
+        image("fine.png", Instant.now());
+        doThrow(new IOException("device busy")).when(imageDerivativeService).deleteDerivatives("stuck.png");
+        imageDeletionService.enqueue("stuck.png");
+        imageDeletionService.enqueue("fine.png");
+
+        imageDeletionService.drain();
+        assertThat(deletionRepository.findAll()).extracting(ImageDeletion::getFileName).containsExactly("stuck.png");
+        assertThat(uploadDir.resolve("fine.png")).doesNotExist();
+
+        imageDeletionService.drain();
+        assertThat(deletionRepository.findAll()).extracting(ImageDeletion::getAttempts).containsExactly(2);
+
+        // The third failure reaches maxAttempts; the row goes and the orphan sweep is left to finish the job
+        imageDeletionService.drain();
+        assertThat(deletionRepository.count()).isZero();
+        verify(imageDerivativeService, times(3)).deleteDerivatives("stuck.png");
+    }
+
+    @Test
+    void sweepRemovesOnlyOldUnreferencedFiles() throws IOException {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        Path orphan = image("orphan.png", old);
+        Path referenced = image("referenced.png", old);
+        Path shared = image("shared.png", old);
+        Path young = image("young.png", Instant.now());
+        Path partial = image("upload.part", old);
+        Path derivative = image("orphan_w320.png", old);
+        post("/images/referenced.png");
+        blob("shared.png", 1);
+
+        imageDeletionService.sweepOrphans();
+
+        assertThat(orphan).doesNotExist();
+        verify(imageDerivativeService).deleteDerivatives("orphan.png");
+        assertThat(List.of(referenced, shared, young, partial, derivative)).allSatisfy(file -> assertThat(file).exists());
+    }
+
+    private Path image(String fileName, Instant modified) throws IOException {
+        Path file = Files.write(uploadDir.resolve(fileName), new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+        return file;
+    }
+
+    private void post(String imageUrl) {
+        User author = new User();
+        author.setUsername("author");
+        author.setEmail("author@example.com");
+        author.setPassword("password");
+        author.setRoles(Set.of(Role.ROLE_USER));
+        BlogPost blogPost = new BlogPost();
+        blogPost.setTitle("Title");
+        blogPost.setContent("Content");
+        blogPost.setImages(List.of(imageUrl));
+        blogPost.setAuthor(userRepository.save(author));
+        blogPostRepository.save(blogPost);
+    }
+
+    private void blob(String fileName, long refCount) {
+        ImageBlob blob = new ImageBlob();
+        blob.setFileName(fileName);
+        blob.setRefCount(refCount);
+        blob.setCreatedAt(Instant.now());
+        imageBlobRepository.save(blob);
+    }
+}
@@ -0,0 +1,147 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.cache.BlogPostCache;
+import com.uttkarsh.blogpost.cache.PostResponseCache;
+import com.uttkarsh.blogpost.dto.ImageVariants;
+import com.uttkarsh.blogpost.model.ImageDerivativeJob;
+import com.uttkarsh.blogpost.repository.BlogPostRepository;
+import com.uttkarsh.blogpost.repository.ImageDerivativeJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTests {
+
+    @TempDir
+    Path uploadDir;
+
+    private final ImageDerivativeJobRepository jobRepository = mock(ImageDerivativeJobRepository.class);
+    private final BlogPostRepository blogPostRepository = mock(BlogPostRepository.class);
+    private final BlogPostCache blogPostCache = mock(BlogPostCache.class);
+    private final PostResponseCache postResponseCache = mock(PostResponseCache.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private ImageDerivativeService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageDerivativeService(jobRepository, blogPostRepository, blogPostCache, postResponseCache, executor);
+        ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(service, "thumbnailWidth", 20);
+        ReflectionTestUtils.setField(service, "mediumWidth", 80);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "pollBatchSize", 10);
+        ReflectionTestUtils.setField(service, "maxPixels", 1_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void variantsComeFromJobStatusLoadedOncePerPage() {
+        when(jobRepository.findAllById(anyIterable())).thenReturn(List.of(
+                job("done.png", ImageDerivativeJob.Status.DONE),
+                job("pending.jpg", ImageDerivativeJob.Status.PENDING)));
+
+        service.prefetch(List.of("/images/done.png", "/images/pending.jpg", "/images/legacy.png"));
+        List<ImageVariants> first = service.variantsOf(List.of("/images/done.png", "/images/legacy.png"));
+        List<ImageVariants> second = service.variantsOf(List.of("/images/pending.jpg"));
+
+        assertThat(first).containsExactly(
+                new ImageVariants("/images/done.png", "/images/done_w20.png", "/images/done_w80.png"),
+                new ImageVariants("/images/legacy.png", null, null));
+        assertThat(second).containsExactly(new ImageVariants("/images/pending.jpg", null, null));
+        verify(jobRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void processWritesDerivativesAndMarksJobDone() throws Exception {
+        writeImage("source.png", 200, 100);
+        ImageDerivativeJob job = job("source.png", ImageDerivativeJob.Status.PENDING);
+        when(jobRepository.findById("source.png")).thenReturn(Optional.of(job));
+        when(blogPostRepository.findIdsByImageUrl("/images/source.png")).thenReturn(List.of(7L));
+
+        service.schedule("source.png");
+        awaitExecutor();
+
+        assertThat(ImageIO.read(uploadDir.resolve("source_w20.png").toFile()).getWidth()).isEqualTo(20);
+        assertThat(ImageIO.read(uploadDir.resolve("source_w80.png").toFile()).getWidth()).isEqualTo(80);
+        assertThat(job.getStatus()).isEqualTo(ImageDerivativeJob.Status.DONE);
+        verify(blogPostRepository).touch(eq(List.of(7L)), any(Instant.class));
+        verify(blogPostCache).invalidate(7L);
+        verify(postResponseCache).invalidate(7L);
+        // Completion updates the cached status, no lookup needed
+        assertThat(service.variantsOf(List.of("/images/source.png")).get(0).getThumbnail()).isEqualTo("/images/source_w20.png");
+        verify(jobRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void processSkipsImagesOverThePixelLimit() throws Exception {
+        ReflectionTestUtils.setField(service, "maxPixels", 5_000L);
+        writeImage("huge.png", 100, 100);
+        ImageDerivativeJob job = job("huge.png", ImageDerivativeJob.Status.PENDING);
+        when(jobRepository.findById("huge.png")).thenReturn(Optional.of(job));
+
+        service.schedule("huge.png");
+        awaitExecutor();
+
+        assertThat(uploadDir.resolve("huge_w20.png")).doesNotExist();
+        assertThat(job.getStatus()).isEqualTo(ImageDerivativeJob.Status.FAILED);
+        verify(blogPostRepository, never()).touch(any(), any());
+    }
+
+    @Test
+    void deletingDerivativesForgetsTheStatus() throws Exception {
+        when(jobRepository.findAllById(anyIterable())).thenReturn(List.of(job("gone.png", ImageDerivativeJob.Status.DONE)));
+        service.prefetch(List.of("/images/gone.png"));
+        when(jobRepository.existsById("gone.png")).thenReturn(true);
+
+        service.deleteDerivatives("gone.png");
+        when(jobRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        assertThat(service.variantsOf(List.of("/images/gone.png"))).containsExactly(new ImageVariants("/images/gone.png", null, null));
+        verify(jobRepository).deleteById("gone.png");
+    }
+
+    private void writeImage(String fileName, int width, int height) throws IOException {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", uploadDir.resolve(fileName).toFile());
+    }
+
+    private void awaitExecutor() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static ImageDerivativeJob job(String fileName, ImageDerivativeJob.Status status) {
+        ImageDerivativeJob job = new ImageDerivativeJob();
+        job.setFileName(fileName);
+        job.setStatus(status);
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        return job;
+    }
+}
@@ -0,0 +1,153 @@
+package com.uttkarsh.blogpost.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uttkarsh.blogpost.dto.ImportError;
+import com.uttkarsh.blogpost.dto.ImportReport;
+import com.uttkarsh.blogpost.event.BlogPostBatchEvent;
+import com.uttkarsh.blogpost.event.BlogPostEvent;
+import com.uttkarsh.blogpost.model.BlogPost;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostImportServiceTests {
+
+    private static final long IMPORTER_ID = 1L;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ImageService imageService = mock(ImageService.class);
+    private final PostCountService postCountService = mock(PostCountService.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final AtomicLong ids = new AtomicLong();
+    private PostImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PostImportService(userRepository, imageService, postCountService, entityManager, eventPublisher,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> requested = invocation.getArgument(0);
+            List<User> users = new ArrayList<>();
+            for (Long id : requested) {
+                if (id <= 2) {
+                    User user = new User();
+                    user.setId(id);
+                    users.add(user);
+                }
+            }
+            return users;
+        });
+        when(entityManager.getReference(eq(User.class), anyLong())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(1));
+            return user;
+        });
+        doAnswer(invocation -> {
+            BlogPost blogPost = invocation.getArgument(0);
+            if (blogPost.getTitle().equals("rejected")) {
+                throw new PersistenceException("value too long");
+            }
+            blogPost.setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(BlogPost.class));
+        when(imageService.isStored(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("/images/"));
+    }
+
+    @Test
+    void persistsOneTransactionAndOneBatchEventPerChunk() throws IOException {
+        String ndjson = IntStream.range(0, 5)
+                .mapToObj(i -> "{\"title\":\"Post " + i + "\",\"content\":\"Body " + i + "\"}")
+                .collect(Collectors.joining("\n"));
+
+        ImportReport report = service.importPosts(stream(ndjson), IMPORTER_ID);
+
+        assertThat(report.getImported()).isEqualTo(5);
+        assertThat(report.getFailed()).isZero();
+        verify(entityManager, times(3)).flush();
+        List<BlogPostBatchEvent> events = publishedBatches(3);
+        assertThat(events).extracting(batch -> batch.events().size()).containsExactly(2, 2, 1);
+        assertThat(events.get(0).events().get(0)).isEqualTo(
+                new BlogPostEvent(BlogPostEvent.Type.CREATED, 1L, "Post 0", "Body 0", IMPORTER_ID));
+        verify(postCountService).adjust(Map.of(IMPORTER_ID, 2L));
+        verify(postCountService).adjust(Map.of(IMPORTER_ID, 1L));
+    }
+
+    @Test
+    void reportsEachBadLineAndImportsTheRest() throws IOException {
+        String ndjson = String.join("\n",
+                "{not json",
+                "",
+                "{\"content\":\"No title\"}",
+                "{\"title\":\"Unknown author\",\"content\":\"Body\",\"authorId\":99}",
+                "{\"title\":\"Missing image\",\"content\":\"Body\",\"images\":[\"http://elsewhere/x.png\"]}",
+                "{\"title\":\"rejected\",\"content\":\"Body\"}",
+                "{\"title\":\"Good\",\"content\":\"Body\",\"authorId\":2}");
+
+        ImportReport report = service.importPosts(stream(ndjson), IMPORTER_ID);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(5);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(1L, 3L, 5L, 4L, 6L);
+        assertThat(report.getErrors()).extracting(ImportError::getMessage).contains(
+                "Title is required", "User not found with id: 99", "Image not found: http://elsewhere/x.png", "value too long");
+        // The chunk holding the rejected post was retried line by line, so the good post still went in
+        List<BlogPostBatchEvent> events = publishedBatches(1);
+        assertThat(events.get(0).events()).extracting(BlogPostEvent::title).containsExactly("Good");
+    }
+
+    @Test
+    void acquiresImageReferencesOncePerChunk() throws IOException {
+        String ndjson = String.join("\n",
+                "{\"title\":\"First\",\"content\":\"Body\",\"images\":[\"/images/a.png\",\"/images/b.png\"]}",
+                "{\"title\":\"Second\",\"content\":\"Body\",\"images\":[\"/images/a.png\"]}");
+
+        service.importPosts(stream(ndjson), IMPORTER_ID);
+
+        verify(imageService).acquireImages(Map.of("/images/a.png", 2L, "/images/b.png", 1L));
+    }
+
+    private List<BlogPostBatchEvent> publishedBatches(int count) {
+        ArgumentCaptor<BlogPostBatchEvent> captor = ArgumentCaptor.forClass(BlogPostBatchEvent.class);
+        verify(eventPublisher, times(count)).publishEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static ByteArrayInputStream stream(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.config.JpaAuditingConfig;
+import com.uttkarsh.blogpost.exception.InvalidRefreshTokenException;
+import com.uttkarsh.blogpost.model.RefreshToken;
+import com.uttkarsh.blogpost.model.Role;
+import com.uttkarsh.blogpost.model.User;
+import com.uttkarsh.blogpost.repository.RefreshTokenRepository;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Each service call commits on its own, as it does behind the controller, so a revocation that must survive
+// the exception is visible afterwards
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RefreshTokenService.class, JpaAuditingConfig.class})
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("password");
+        user.setRoles(Set.of(Role.ROLE_USER));
+        this.user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void rotationIssuesASuccessorAndSpendsTheToken() {
+        String token = refreshTokenService.issue(user);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+        assertThat(rotation.refreshToken()).isNotEqualTo(token);
+        assertThat(rotation.user().getUsername()).isEqualTo("alice");
+        assertThat(refreshTokenService.rotate(rotation.refreshToken()).refreshToken()).isNotBlank();
+    }
+
+    @Test
+    void reusingASpentTokenRevokesTheWholeFamily() {
+        String stolen = refreshTokenService.issue(user);
+        String successor = refreshTokenService.rotate(stolen).refreshToken();
+        String otherLogin = refreshTokenService.issue(user);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(stolen))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has already been used");
+
+        // The revocation committed although rotate threw
+        assertThatThrownBy(() -> refreshTokenService.rotate(successor))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has already been used");
+        assertThat(refreshTokenService.rotate(otherLogin).refreshToken()).isNotBlank();
+    }
+
+    @Test
+    void expiredTokensAreRefusedAndCleanedUp() {
+        String token = refreshTokenService.issue(user);
+        for (RefreshToken refreshToken : refreshTokenRepository.findAll()) {
+            refreshToken.setExpiresAt(Instant.now().minus(Duration.ofMinutes(1)));
+            refreshTokenRepository.save(refreshToken);
+        }
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has expired");
+
+        refreshTokenService.deleteExpired();
+        assertThat(refreshTokenRepository.count()).isZero();
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Invalid refresh token");
+    }
+
+    @Test
+    void logoutIsIdempotent() {
+        String token = refreshTokenService.issue(user);
+        String successor = refreshTokenService.rotate(token).refreshToken();
+
+        refreshTokenService.revoke(successor);
+        refreshTokenService.revoke(successor);
+        refreshTokenService.revoke("never-issued");
+
+        assertThat(refreshTokenRepository.findAll()).allSatisfy(refreshToken -> assertThat(refreshToken.getRevokedAt()).isNotNull());
+        assertThatThrownBy(() -> refreshTokenService.rotate(successor))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+}
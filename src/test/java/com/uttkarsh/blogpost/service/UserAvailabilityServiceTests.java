@@ -0,0 +1,63 @@
+package com.uttkarsh.blogpost.service;
+
+import com.uttkarsh.blogpost.dto.UserHandles;
+import com.uttkarsh.blogpost.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserAvailabilityServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UserAvailabilityService userAvailabilityService;
+
+    @BeforeEach
+    void setUp() {
+        userAvailabilityService = new UserAvailabilityService(userRepository, new SimpleMeterRegistry(), 1000, 0.01);
+        ReflectionTestUtils.setField(userAvailabilityService, "warmBatchSize", 100);
+        ReflectionTestUtils.setField(userAvailabilityService, "syncLookbackMs", 60_000L);
+        when(userRepository.findHandles(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        userAvailabilityService.warm();
+    }
+
+    @Test
+    void unknownNamesAreFreeWithoutAQuery() {
+        assertThat(userAvailabilityService.isUsernameAvailable("alice")).isTrue();
+        verify(userRepository, never()).existsByUsername("alice");
+    }
+
+    @Test
+    void registrationsOnOtherInstancesReachTheFilterAtTheNextSync() {
+        when(userRepository.findHandlesCreatedSince(any(Instant.class)))
+                .thenReturn(List.of(new UserHandles(1L, "alice", "alice@example.com")));
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+        when(userRepository.existsByEmail("alice@example.com")).thenReturn(true);
+
+        userAvailabilityService.syncRegistrations();
+
+        assertThat(userAvailabilityService.isUsernameAvailable("alice")).isFalse();
+        assertThat(userAvailabilityService.isEmailAvailable("alice@example.com")).isFalse();
+    }
+
+    @Test
+    void syncIsSkippedUntilWarm() {
+        UserAvailabilityService cold = new UserAvailabilityService(userRepository, new SimpleMeterRegistry(), 1000, 0.01);
+
+        cold.syncRegistrations();
+
+        verify(userRepository, never()).findHandlesCreatedSince(any());
+    }
+}
@@ -0,0 +1,30 @@
+package com.uttkarsh.blogpost.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    @Test
+    void neverMissesAnAddedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i));
+
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("user" + i));
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@example.com"));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other" + i + "@example.com"))
+                .count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}